@@ -18,9 +18,7 @@ public class ActionEncoder {
      * @return The list of sorted insertion positions
      */
     private static List<Pos> getSortedPos(GameState gameState) {
-        return gameState.board().insertionPositions().stream()
-                .sorted(Comparator.comparingInt(Pos::x).thenComparingInt(Pos::y))
-                .toList();
+        return gameState.board().sortedInsertionPositions();
     }
 
     /**
@@ -44,7 +42,7 @@ public class ActionEncoder {
     public static StateAction withPlacedTile(GameState gameState, PlacedTile placedTile) {
         // Check if the placed tile is not null and is on an insertion position
         Objects.requireNonNull(placedTile);
-        Preconditions.checkArgument(gameState.board().insertionPositions().contains(placedTile.pos()));
+        Preconditions.checkArgument(gameState.board().isInsertionPosition(placedTile.pos()));
 
         // Sort the insertion positions by x and then by y
         List<Pos> sortedPos = getSortedPos(gameState);
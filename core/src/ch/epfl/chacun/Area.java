@@ -0,0 +1,596 @@
+package ch.epfl.chacun;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Represents an area of the board
+ * The zones are stored as an array sorted by id together with a bitset of their ids,
+ * the occupants as the number of occupants of each player, and the values needed to score the area
+ * are aggregated when the area is created from its zones or from the connection of two areas
+ * @param <Z> The generic type used to allow the area to contain different types of zones
+ * @author Antoine Bastide (375407)
+ */
+public final class Area<Z extends Zone> {
+    /** The number of bits in a word of a bitset */
+    private static final int BITS_PER_WORD = Long.SIZE;
+
+    /** The zones that make up the area, sorted by id */
+    private final Zone[] zones;
+    /** The bitset of the ids of the zones that make up the area */
+    private final long[] zoneIds;
+    /** The number of occupants of each player, indexed by the ordinal of its color */
+    private final int[] occupantCounts;
+    /** The number of open connections in the area */
+    private final int openConnections;
+    /** The scoring aggregates of the zones of the area */
+    private final Aggregates aggregates;
+    /** The hash code of the area, computed once since the area is immutable */
+    private final int hashCode;
+    /** The set of the zones that make up the area, computed on demand */
+    private Set<Z> zoneSet;
+    /** The sorted list of the occupants of the area, computed on demand */
+    private List<PlayerColor> occupantList;
+    /** The set of the ids of the tiles that make up the area, computed on demand */
+    private Set<Integer> tileIds;
+
+    /**
+     * Used to create an area
+     * @param zones The zones that make up the area
+     * @param occupants The occupants of the area
+     * @param openConnections The number of open connections in the area
+     */
+    public Area(Set<Z> zones, List<PlayerColor> occupants, int openConnections) {
+        this(sortedById(zones), occupantCounts(occupants), openConnections, null);
+    }
+
+    /**
+     * Used to create an area from its compact representation
+     * @param zones The zones that make up the area, sorted by id
+     * @param occupantCounts The number of occupants of each player
+     * @param openConnections The number of open connections in the area
+     * @param aggregates The scoring aggregates of the zones, or null to compute them from the zones
+     */
+    private Area(Zone[] zones, int[] occupantCounts, int openConnections, Aggregates aggregates) {
+        // Make sure the arguments are valid
+        Preconditions.checkArgument(openConnections >= 0);
+        this.zones = zones;
+        this.zoneIds = zoneIds(zones);
+        this.occupantCounts = occupantCounts;
+        this.openConnections = openConnections;
+        this.aggregates = Objects.isNull(aggregates) ? Aggregates.of(zones) : aggregates;
+
+        // Hash the zones like a set so that the hash code is consistent with the one of zones()
+        int zonesHashCode = 0;
+        for (Zone zone : zones) zonesHashCode += zone.hashCode();
+        this.hashCode = Objects.hash(zonesHashCode, Arrays.hashCode(occupantCounts), openConnections);
+    }
+
+    /**
+     * Used to sort the given zones by id
+     * @param zones The zones to sort
+     * @return The array of the zones sorted by id
+     */
+    private static Zone[] sortedById(Set<? extends Zone> zones) {
+        Zone[] sortedZones = zones.toArray(new Zone[0]);
+        for (Zone zone : sortedZones) Objects.requireNonNull(zone);
+        Arrays.sort(sortedZones, Comparator.comparingInt(Zone::id));
+        return sortedZones;
+    }
+
+    /**
+     * Used to count the number of occupants of each player
+     * @param occupants The occupants
+     * @return The number of occupants of each player, indexed by the ordinal of its color
+     */
+    private static int[] occupantCounts(List<PlayerColor> occupants) {
+        int[] occupantCounts = new int[PlayerColor.ALL.size()];
+        for (PlayerColor occupant : occupants) occupantCounts[occupant.ordinal()]++;
+        return occupantCounts;
+    }
+
+    /**
+     * Used to compute the bitset of the ids of the given zones
+     * @param zones The zones, sorted by id
+     * @return The bitset of the ids of the zones
+     */
+    private static long[] zoneIds(Zone[] zones) {
+        if (zones.length == 0) return new long[0];
+        long[] zoneIds = new long[zones[zones.length - 1].id() / BITS_PER_WORD + 1];
+        for (Zone zone : zones) zoneIds[zone.id() / BITS_PER_WORD] |= 1L << zone.id();
+        return zoneIds;
+    }
+
+    /**
+     * Used to get the zones that make up the area
+     * @return The unmodifiable set of the zones that make up the area
+     */
+    @SuppressWarnings("unchecked")
+    public Set<Z> zones() {
+        Set<Z> zoneSet = this.zoneSet;
+        if (zoneSet == null) this.zoneSet = zoneSet = (Set<Z>) Set.of(zones);
+        return zoneSet;
+    }
+
+    /**
+     * Used to get the players that have placed an occupant in the area
+     * @return The unmodifiable list of the occupants of the area, sorted by color
+     */
+    public List<PlayerColor> occupants() {
+        List<PlayerColor> occupantList = this.occupantList;
+        if (occupantList == null) {
+            List<PlayerColor> occupants = new ArrayList<>();
+            for (PlayerColor color : PlayerColor.ALL)
+                for (int i = 0; i < occupantCounts[color.ordinal()]; i++) occupants.add(color);
+            this.occupantList = occupantList = List.copyOf(occupants);
+        }
+        return occupantList;
+    }
+
+    /**
+     * Used to get the number of open connections in the area
+     * @return The number of open connections in the area
+     */
+    public int openConnections() {
+        return openConnections;
+    }
+
+    /**
+     * Used to check if a forest area has at least one menhir
+     * @param forest The forest area to check
+     * @return True if the area has at least one menhir, False otherwise
+     */
+    public static boolean hasMenhir(Area<Zone.Forest> forest) {
+        return forest.aggregates.hasMenhir;
+    }
+
+    /**
+     * Used to count the number of mushroom groups in a forest area
+     * @param forest The forest area to check
+     * @return The number of mushroom groups in the forest area
+     */
+    public static int mushroomGroupCount(Area<Zone.Forest> forest) {
+        return forest.aggregates.mushroomGroupCount;
+    }
+
+    /**
+     * Used to get all the animals in a meadow area that are not cancelled
+     * @param meadow The meadow area to check
+     * @param cancelledAnimals The animals that are cancelled out
+     * @return The set of animals in the meadow that are not cancelled
+     */
+    public static Set<Animal> animals(Area<Zone.Meadow> meadow, Set<Animal> cancelledAnimals) {
+        // Create the animal set and populate it with the animals in the meadow that are not cancelled
+        Set<Animal> animals = meadow.zones().stream()
+                .flatMap(zone -> zone.animals().stream())
+                .filter(animal -> !cancelledAnimals.contains(animal))
+                .collect(Collectors.toSet());
+        return Set.copyOf(animals);
+    }
+
+    /**
+     * Used to count the animals of each kind in a meadow area that are not cancelled
+     * @param meadow The meadow area to check
+     * @param cancelledAnimals The animals that are cancelled out
+     * @return The number of animals of each kind in the meadow, without the kinds that have no animals
+     */
+    public static Map<Animal.Kind, Integer> animalCounts(Area<Zone.Meadow> meadow, Set<Animal> cancelledAnimals) {
+        int[] animalCounts = meadow.aggregates.animalCounts.clone();
+
+        // Only the cancelled animals that are in one of the zones of the meadow are subtracted
+        for (Animal animal : cancelledAnimals) {
+            Zone zone = meadow.zoneWithId(animal.id() / 10);
+            if (zone instanceof Zone.Meadow meadowZone && meadowZone.animals().contains(animal))
+                animalCounts[animal.kind().ordinal()]--;
+        }
+
+        Map<Animal.Kind, Integer> animalCountMap = new EnumMap<>(Animal.Kind.class);
+        for (Animal.Kind kind : Animal.Kind.values())
+            if (animalCounts[kind.ordinal()] > 0) animalCountMap.put(kind, animalCounts[kind.ordinal()]);
+        return animalCountMap;
+    }
+
+    /**
+     * Used to count the number of fish in a river area
+     * @param river The river area to check
+     * @return The number of fish in the river area
+     */
+    public static int riverFishCount(Area<Zone.River> river) {
+        return river.aggregates.riverFishCount + river.aggregates.adjacentLakeFishCount;
+    }
+
+    /**
+     * Used to count the number of fish in a river system area
+     * @param riverSystem The river system area to check
+     * @return The number of fish in the river system area
+     */
+    public static int riverSystemFishCount(Area<Zone.Water> riverSystem) {
+        return riverSystem.aggregates.waterFishCount;
+    }
+
+    /**
+     * Used to count the number of lakes in a river system area
+     * @param riverSystem The river system area to check
+     * @return The number of lakes in the river system area
+     */
+    public static int lakeCount(Area<Zone.Water> riverSystem) {
+        return riverSystem.aggregates.lakeCount;
+    }
+
+    /**
+     * Used to check if this area is closed
+     * @return True if the area is closed, False otherwise
+     */
+    public boolean isClosed() {
+        return openConnections == 0;
+    }
+
+    /**
+     * Used to check if this area is occupied
+     * @return True if the area has at least one occupant, False otherwise
+     */
+    public boolean isOccupied() {
+        for (int count : occupantCounts)
+            if (count > 0) return true;
+        return false;
+    }
+
+    /**
+     * Used to check if the zone with the given id is part of this area
+     * @param zoneId The id of the zone
+     * @return True if the zone with the given id is part of this area, False otherwise
+     */
+    public boolean containsZoneWithId(int zoneId) {
+        int word = zoneId / BITS_PER_WORD;
+        return 0 <= zoneId && word < zoneIds.length && (zoneIds[word] & 1L << zoneId) != 0;
+    }
+
+    /**
+     * Used to find the zone with the given id in this area
+     * @param zoneId The id of the zone
+     * @return The zone with the given id, or null if it is not part of this area
+     */
+    private Zone zoneWithId(int zoneId) {
+        if (!containsZoneWithId(zoneId)) return null;
+        int low = 0, high = zones.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int id = zones[middle].id();
+            if (id < zoneId) low = middle + 1;
+            else if (id > zoneId) high = middle - 1;
+            else return zones[middle];
+        }
+        return null;
+    }
+
+    /**
+     * Used to get the majority occupants of the area
+     * @return The set of majority occupants of the area
+     */
+    public Set<PlayerColor> majorityOccupants() {
+        // Find the maximum count of occupants
+        int maxOccupantCount = 0;
+        for (int count : occupantCounts) maxOccupantCount = Math.max(maxOccupantCount, count);
+
+        // If the area is not occupied by anyone, return an empty set
+        if (maxOccupantCount == 0) return Set.of();
+
+        // Collect the colors with the maximum count into a set
+        Set<PlayerColor> majorityOccupants = EnumSet.noneOf(PlayerColor.class);
+        for (PlayerColor color : PlayerColor.ALL)
+            if (occupantCounts[color.ordinal()] == maxOccupantCount) majorityOccupants.add(color);
+
+        return Collections.unmodifiableSet(majorityOccupants);
+    }
+
+    /**
+     * Used to combine this area with another area
+     * @param that The other area to combine with
+     * @return The combination of both areas
+     */
+    public Area<Z> connectTo(Area<Z> that) {
+        // If this and that are the same area, only the open connections change
+        if (this.equals(that)) return new Area<>(zones, occupantCounts, openConnections - 2, aggregates);
+
+        // Merge the zones, sorted by id, and add the occupants of both areas
+        int[] newOccupantCounts = occupantCounts.clone();
+        for (int i = 0; i < newOccupantCounts.length; i++) newOccupantCounts[i] += that.occupantCounts[i];
+
+        // If this and that are different, the new area will have two less
+        // open connections than the sum of the open connections of the two areas
+        Zone[] newZones = mergedZones(zones, that.zones);
+        Aggregates newAggregates = newZones.length == zones.length + that.zones.length
+                ? aggregates.connectedTo(that.aggregates, that.zones)
+                : null;
+        return new Area<>(newZones, newOccupantCounts, openConnections + that.openConnections - 2, newAggregates);
+    }
+
+    /**
+     * Used to merge two arrays of zones sorted by id, keeping the zones with the same id only once
+     * @param zones1 The first array of zones
+     * @param zones2 The second array of zones
+     * @return The merged array of zones, sorted by id
+     */
+    private static Zone[] mergedZones(Zone[] zones1, Zone[] zones2) {
+        Zone[] merged = new Zone[zones1.length + zones2.length];
+        int i = 0, j = 0, k = 0;
+        while (i < zones1.length && j < zones2.length) {
+            int cmp = Integer.compare(zones1[i].id(), zones2[j].id());
+            if (cmp == 0 && zones1[i].equals(zones2[j])) j++;
+            else merged[k++] = cmp <= 0 ? zones1[i++] : zones2[j++];
+        }
+        while (i < zones1.length) merged[k++] = zones1[i++];
+        while (j < zones2.length) merged[k++] = zones2[j++];
+        return k == merged.length ? merged : Arrays.copyOf(merged, k);
+    }
+
+    /**
+     * Used change the occupant of an empty area
+     * @param occupant The occupant to add to the area
+     * @return The same area but with the given occupant
+     * @throws IllegalArgumentException if the area is already occupied
+     */
+    public Area<Z> withInitialOccupant(PlayerColor occupant) {
+        Preconditions.checkArgument(!isOccupied());
+        int[] newOccupantCounts = new int[occupantCounts.length];
+        newOccupantCounts[occupant.ordinal()] = 1;
+        return new Area<>(zones, newOccupantCounts, openConnections, aggregates);
+    }
+
+    /**
+     * Used to remove an occupant from this area
+     * @param occupant The occupant to remove to the area
+     * @return The same area but without the given occupant
+     * @throws IllegalArgumentException if the given occupant is not in the area
+     */
+    public Area<Z> withoutOccupant(PlayerColor occupant) {
+        Preconditions.checkArgument(occupantCounts[occupant.ordinal()] > 0);
+        int[] newOccupantCounts = occupantCounts.clone();
+        newOccupantCounts[occupant.ordinal()]--;
+        return new Area<>(zones, newOccupantCounts, openConnections, aggregates);
+    }
+
+    /**
+     * Used to remove all occupants from this area
+     * @return The same area but without any occupants
+     */
+    public Area<Z> withoutOccupants() {
+        return new Area<>(zones, new int[occupantCounts.length], openConnections, aggregates);
+    }
+
+    /**
+     * Used to get the ids of all the tiles that make up the area
+     * @return The set of ids of all the tiles that make up the area
+     */
+    public Set<Integer> tileIds() {
+        Set<Integer> tileIds = this.tileIds;
+        if (tileIds == null) {
+            Set<Integer> ids = new HashSet<>();
+            for (Zone zone : zones) ids.add(zone.tileId());
+            this.tileIds = tileIds = Set.copyOf(ids);
+        }
+        return tileIds;
+    }
+
+    /**
+     * Used to get the number of distinct tiles that make up the area
+     * @return The number of distinct tiles that make up the area
+     */
+    public int tileCount() {
+        return aggregates.tileCount;
+    }
+
+    /**
+     * Used to try and find a zone with the given special power in this area
+     * @param specialPower The special power to find
+     * @return The zone with the given special power, or null if there is none
+     */
+    public Zone zoneWithSpecialPower(Zone.SpecialPower specialPower) {
+        for (Zone zone : zones)
+            if (zone.specialPower() == specialPower) return zone;
+        return null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        return o instanceof Area<?> that && hashCode == that.hashCode && openConnections == that.openConnections
+                && Arrays.equals(zoneIds, that.zoneIds) && Arrays.equals(occupantCounts, that.occupantCounts)
+                && Arrays.equals(zones, that.zones);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return STR."Area[zones=\{zones()}, occupants=\{occupants()}, openConnections=\{openConnections}]";
+    }
+
+    /**
+     * Represents the values needed to score an area, aggregated over its zones
+     * @author Antoine Bastide (375407)
+     */
+    private static final class Aggregates {
+        /** The bitset of the ids of the tiles of the zones */
+        private final long[] tileIds;
+        /** The number of distinct tiles of the zones */
+        private final int tileCount;
+        /** The number of forest zones with mushrooms */
+        private final int mushroomGroupCount;
+        /** Whether one of the forest zones has a menhir */
+        private final boolean hasMenhir;
+        /** The number of fish of the water zones, rivers and lakes included */
+        private final int waterFishCount;
+        /** The number of lake zones */
+        private final int lakeCount;
+        /** The number of fish of the river zones, without their lakes */
+        private final int riverFishCount;
+        /** The bitset of the ids of the lakes the river zones are connected to */
+        private final long[] adjacentLakeIds;
+        /** The number of fish of the distinct lakes the river zones are connected to */
+        private final int adjacentLakeFishCount;
+        /** The number of animals of the meadow zones, indexed by the ordinal of their kind */
+        private final int[] animalCounts;
+
+        /**
+         * Used to construct the aggregates of some zones
+         * @param tileIds The bitset of the ids of the tiles of the zones
+         * @param mushroomGroupCount The number of forest zones with mushrooms
+         * @param hasMenhir Whether one of the forest zones has a menhir
+         * @param waterFishCount The number of fish of the water zones
+         * @param lakeCount The number of lake zones
+         * @param riverFishCount The number of fish of the river zones, without their lakes
+         * @param adjacentLakeIds The bitset of the ids of the lakes the river zones are connected to
+         * @param adjacentLakeFishCount The number of fish of the distinct lakes the river zones are connected to
+         * @param animalCounts The number of animals of each kind of the meadow zones
+         */
+        private Aggregates(long[] tileIds, int mushroomGroupCount, boolean hasMenhir, int waterFishCount,
+                           int lakeCount, int riverFishCount, long[] adjacentLakeIds, int adjacentLakeFishCount,
+                           int[] animalCounts) {
+            this.tileIds = tileIds;
+            this.tileCount = bitCount(tileIds);
+            this.mushroomGroupCount = mushroomGroupCount;
+            this.hasMenhir = hasMenhir;
+            this.waterFishCount = waterFishCount;
+            this.lakeCount = lakeCount;
+            this.riverFishCount = riverFishCount;
+            this.adjacentLakeIds = adjacentLakeIds;
+            this.adjacentLakeFishCount = adjacentLakeFishCount;
+            this.animalCounts = animalCounts;
+        }
+
+        /**
+         * Used to compute the aggregates of the given zones
+         * @param zones The zones
+         * @return The aggregates of the zones
+         */
+        private static Aggregates of(Zone[] zones) {
+            long[] tileIds = new long[0];
+            long[] adjacentLakeIds = new long[0];
+            int mushroomGroupCount = 0, waterFishCount = 0, lakeCount = 0, riverFishCount = 0;
+            int adjacentLakeFishCount = 0;
+            boolean hasMenhir = false;
+            int[] animalCounts = new int[Animal.Kind.values().length];
+
+            for (Zone zone : zones) {
+                tileIds = withBit(tileIds, zone.tileId());
+                switch (zone) {
+                    case Zone.Forest forest -> {
+                        if (forest.kind() == Zone.Forest.Kind.WITH_MUSHROOMS) mushroomGroupCount++;
+                        if (forest.kind() == Zone.Forest.Kind.WITH_MENHIR) hasMenhir = true;
+                    }
+                    case Zone.Meadow meadow -> meadow.animals().forEach(a -> animalCounts[a.kind().ordinal()]++);
+                    case Zone.Lake lake -> {
+                        waterFishCount += lake.fishCount();
+                        lakeCount++;
+                    }
+                    case Zone.River river -> {
+                        waterFishCount += river.fishCount();
+                        riverFishCount += river.fishCount();
+                        // Count the fish of each lake only once, even if several rivers are connected to it
+                        if (river.hasLake() && !hasBit(adjacentLakeIds, river.lake().id())) {
+                            adjacentLakeIds = withBit(adjacentLakeIds, river.lake().id());
+                            adjacentLakeFishCount += river.lake().fishCount();
+                        }
+                    }
+                }
+            }
+
+            return new Aggregates(tileIds, mushroomGroupCount, hasMenhir, waterFishCount, lakeCount, riverFishCount,
+                    adjacentLakeIds, adjacentLakeFishCount, animalCounts);
+        }
+
+        /**
+         * Used to compute the aggregates of the union of two disjoint sets of zones
+         * @param that The aggregates of the other zones
+         * @param thatZones The other zones, used to find the lakes both sets of zones are connected to
+         * @return The aggregates of the union of the zones
+         */
+        private Aggregates connectedTo(Aggregates that, Zone[] thatZones) {
+            // The lakes both sets of zones are connected to must not be counted twice
+            int adjacentLakeFishCount = this.adjacentLakeFishCount + that.adjacentLakeFishCount;
+            long[] commonLakeIds = new long[0];
+            if (intersects(adjacentLakeIds, that.adjacentLakeIds)) {
+                for (Zone zone : thatZones) {
+                    if (zone instanceof Zone.River river && river.hasLake() && hasBit(adjacentLakeIds, river.lake().id())
+                            && !hasBit(commonLakeIds, river.lake().id())) {
+                        commonLakeIds = withBit(commonLakeIds, river.lake().id());
+                        adjacentLakeFishCount -= river.lake().fishCount();
+                    }
+                }
+            }
+
+            int[] animalCounts = this.animalCounts.clone();
+            for (int i = 0; i < animalCounts.length; i++) animalCounts[i] += that.animalCounts[i];
+
+            return new Aggregates(or(tileIds, that.tileIds), mushroomGroupCount + that.mushroomGroupCount,
+                    hasMenhir || that.hasMenhir, waterFishCount + that.waterFishCount, lakeCount + that.lakeCount,
+                    riverFishCount + that.riverFishCount, or(adjacentLakeIds, that.adjacentLakeIds),
+                    adjacentLakeFishCount, animalCounts);
+        }
+    }
+
+    /**
+     * Used to check if the given bit of a bitset is set
+     * @param bits The bitset
+     * @param index The index of the bit
+     * @return True if the bit is set, False otherwise
+     */
+    private static boolean hasBit(long[] bits, int index) {
+        int word = index / BITS_PER_WORD;
+        return word < bits.length && (bits[word] & 1L << index) != 0;
+    }
+
+    /**
+     * Used to set the given bit of a bitset, growing it if needed
+     * @param bits The bitset, modified in place if it is large enough
+     * @param index The index of the bit
+     * @return The bitset with the bit set
+     */
+    private static long[] withBit(long[] bits, int index) {
+        int word = index / BITS_PER_WORD;
+        if (word >= bits.length) bits = Arrays.copyOf(bits, word + 1);
+        bits[word] |= 1L << index;
+        return bits;
+    }
+
+    /**
+     * Used to compute the union of two bitsets
+     * @param bits1 The first bitset
+     * @param bits2 The second bitset
+     * @return The new bitset containing the bits set in either bitset
+     */
+    private static long[] or(long[] bits1, long[] bits2) {
+        long[] longer = bits1.length >= bits2.length ? bits1 : bits2;
+        long[] shorter = longer == bits1 ? bits2 : bits1;
+        long[] union = longer.clone();
+        for (int i = 0; i < shorter.length; i++) union[i] |= shorter[i];
+        return union;
+    }
+
+    /**
+     * Used to check if two bitsets have a bit set in common
+     * @param bits1 The first bitset
+     * @param bits2 The second bitset
+     * @return True if a bit is set in both bitsets, False otherwise
+     */
+    private static boolean intersects(long[] bits1, long[] bits2) {
+        for (int i = 0; i < Math.min(bits1.length, bits2.length); i++)
+            if ((bits1[i] & bits2[i]) != 0) return true;
+        return false;
+    }
+
+    /**
+     * Used to count the bits set in a bitset
+     * @param bits The bitset
+     * @return The number of bits set
+     */
+    private static int bitCount(long[] bits) {
+        int count = 0;
+        for (long word : bits) count += Long.bitCount(word);
+        return count;
+    }
+}
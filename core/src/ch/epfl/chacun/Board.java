@@ -0,0 +1,789 @@
+package ch.epfl.chacun;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Represents the board of the game
+ * @author Adam Bekkar (379476), Antoine Bastide (375407)
+ */
+public final class Board {
+    /** The number of tiles that separate the center of the board from one edge */
+    public static int REACH = 12;
+    /** The number of tiles per row */
+    private static final int TILES_PER_SIDE = 2 * REACH + 1;
+    /** The total number of tiles on the board */
+    private static final int TOTAL_TILE_COUNT = TILES_PER_SIDE * TILES_PER_SIDE;
+    /** The number of bits in a word of the fringe bitset */
+    private static final int BITS_PER_WORD = Long.SIZE;
+    /** The translation along the x-axis to the neighbour in each direction, indexed by direction ordinal */
+    private static final int[] NEIGHBOUR_DX = { 0, 1, 0, -1 };
+    /** The translation along the y-axis to the neighbour in each direction, indexed by direction ordinal */
+    private static final int[] NEIGHBOUR_DY = { -1, 0, 1, 0 };
+    /** The value of the tile index array for the tiles that are not on the board */
+    private static final int NO_INDEX = -1;
+    /** The number of kinds of occupants */
+    private static final int OCCUPANT_KIND_COUNT = Occupant.Kind.values().length;
+    /** The empty board */
+    public static final Board EMPTY = new Board(new PlacedTile[TOTAL_TILE_COUNT], new int[0], new int[0],
+            new long[(TOTAL_TILE_COUNT + BITS_PER_WORD - 1) / BITS_PER_WORD], ZonePartitions.EMPTY, new HashSet<>(),
+            Set.of(), new int[PlayerColor.ALL.size() * OCCUPANT_KIND_COUNT], 0L);
+    /** The array of the placed tiles on the board */
+    private final PlacedTile[] placedTiles;
+    /** The array of the index of the placed tile in the placedTiles array in the order in which it has been placed */
+    private final int[] placedTilesIndex;
+    /** The array of the index of the placed tile in the placedTiles array, indexed by tile id, or NO_INDEX */
+    private final int[] tileIndexById;
+    /** The bitset of the indexes in the placedTiles array of the positions where a tile can be inserted */
+    private final long[] fringe;
+    /** The zone partitions of the board */
+    private final ZonePartitions zonePartitions;
+    /** The cancelled animals of the board */
+    private final Set<Animal> cancelledAnimals;
+    /** The occupants of the board */
+    private final Set<Occupant> occupants;
+    /** The number of occupants of each player and kind, indexed by occupantCountIndex */
+    private final int[] occupantCounts;
+    /** The Zobrist hash of the placed tiles, the occupants and the cancelled animals, see {@link Zobrist} */
+    private final long zobristHash;
+    /** The positions where a tile can be inserted sorted by x and then by y, computed on demand from the fringe */
+    private List<Pos> sortedInsertionPositions;
+    /** The set of the positions where a tile can be inserted, computed on demand from the fringe */
+    private Set<Pos> insertionPositions;
+
+    /**
+     * <Constructs a board with the given placed tiles, placed tiles index, tile index by id,
+     * fringe, zone partitions, cancelled animals and occupants
+     * @param placedTiles The placed tiles of the board
+     * @param placedTilesIndex The index of the placed tile in the placedTiles array in the order in which it has been placed
+     * @param tileIndexById The index of the placed tile in the placedTiles array, indexed by tile id
+     * @param fringe The bitset of the indexes of the positions where a tile can be inserted
+     * @param zonePartitions The zone partitions of the board
+     * @param cancelledAnimals The cancelled animals of the board
+     * @param occupants The occupants of the board
+     * @param occupantCounts The number of occupants of each player and kind, indexed by occupantCountIndex
+     * @param zobristHash The Zobrist hash of the placed tiles, the occupants and the cancelled animals
+     */
+    private Board(PlacedTile[] placedTiles, int[] placedTilesIndex, int[] tileIndexById, long[] fringe,
+                  ZonePartitions zonePartitions, Set<Animal> cancelledAnimals, Set<Occupant> occupants,
+                  int[] occupantCounts, long zobristHash) {
+        this.placedTiles = placedTiles;
+        this.placedTilesIndex = placedTilesIndex;
+        this.tileIndexById = tileIndexById;
+        this.fringe = fringe;
+        this.zonePartitions = zonePartitions;
+        this.cancelledAnimals = Set.copyOf(cancelledAnimals);
+        this.occupants = occupants;
+        this.occupantCounts = occupantCounts;
+        this.zobristHash = zobristHash;
+    }
+
+    /**
+     * Used to return the placed tile at the given position
+     * @param pos The position of the tile to find
+     * @return The placed tile at the given position or null if there is none or the position is out of the board
+     */
+    public PlacedTile tileAt(Pos pos) {
+        int index = indexOf(pos);
+        return -1 < index && index < TOTAL_TILE_COUNT ? placedTiles[index] : null;
+    }
+
+    /**
+     * Used to return the placed tile given its id
+     * @param tileId The id of the tile to find
+     * @throws IllegalArgumentException If the tile is not on the board
+     * @return The placed tile with the given id
+     */
+    public PlacedTile tileWithId(int tileId) {
+        Preconditions.checkArgument(0 <= tileId && tileId < tileIndexById.length && tileIndexById[tileId] != NO_INDEX);
+        return placedTiles[tileIndexById[tileId]];
+    }
+
+    /**
+     * Used to return the set of the cancelled animals of the board
+     * @return The set of the cancelled animals of the board
+     */
+    public Set<Animal> cancelledAnimals() {
+        return cancelledAnimals;
+    }
+
+    /**
+     * Used to return the set of all the occupants of the board
+     * @return The set of all the occupants of the board
+     */
+    public Set<Occupant> occupants() {
+        return occupants;
+    }
+
+    /**
+     * Used to return the forest area containing the given forest zone
+     * @param forest The forest zone to find the area for
+     * @throws IllegalArgumentException If the forest zone is not on the board
+     * @return The area containing the forest zone
+     */
+    public Area<Zone.Forest> forestArea(Zone.Forest forest) {
+        return zonePartitions.forests().areaContaining(forest);
+    }
+
+    /**
+     * Used to return the meadow area containing the given meadow zone
+     * @param meadow The meadow zone to find the area forT
+     * @throws IllegalArgumentException If the meadow zone is not on the board
+     * @return The area containing the meadow zone
+     */
+    public Area<Zone.Meadow> meadowArea(Zone.Meadow meadow) {
+        return zonePartitions.meadows().areaContaining(meadow);
+    }
+
+    /**
+     * Used to return the river area containing the given river zone
+     * @param riverZone The river zone to find the area for
+     * @throws IllegalArgumentException If the river zone is not on the board
+     * @return The area containing the river zone
+     */
+    public Area<Zone.River> riverArea(Zone.River riverZone) {
+        return zonePartitions.rivers().areaContaining(riverZone);
+    }
+
+    /**
+     * Used to return the river system area containing the given river system zone
+     * @param water The river system zone to find the area for
+     * @throws IllegalArgumentException If the river system zone is not on the board
+     * @return The area containing the river system zone
+     */
+    public Area<Zone.Water> riverSystemArea(Zone.Water water) {
+        return zonePartitions.riverSystems().areaContaining(water);
+    }
+
+    /**
+     * Used to return the set of all the meadow areas of the board
+     * @return The set of all the meadow areas of the board
+     */
+    public Set<Area<Zone.Meadow>> meadowAreas() {
+        return zonePartitions.meadows().areas();
+    }
+
+    /**
+     * Used to return the set of all the river systems areas of the board
+     * @return The set of all the river systems areas of the board
+     */
+    public Set<Area<Zone.Water>> riverSystemAreas() {
+        return zonePartitions.riverSystems().areas();
+    }
+
+    /**
+     * Used to return the set of all the forest areas of the board
+     * @return The set of all the forest areas of the board
+     */
+    public Set<Area<Zone.Forest>> forestAreas() {
+        return zonePartitions.forests().areas();
+    }
+
+    /**
+     * Used to return the set of all the river areas of the board
+     * @return The set of all the river areas of the board
+     */
+    public Set<Area<Zone.River>> riverAreas() {
+        return zonePartitions.rivers().areas();
+    }
+
+    /**
+     * Used to return the adjacent meadow area to the given zone of the given position
+     * @param pos The position to find the adjacent meadow area for
+     * @param meadowZone The meadow zone to find the adjacent meadow area for
+     * @return The adjacent meadow area to the given zone of the given position
+     */
+    public Area<Zone.Meadow> adjacentMeadow(Pos pos, Zone.Meadow meadowZone) {
+        Set<Zone.Meadow> adjacentMeadows = new HashSet<>();
+
+        // Iterate through the 8 adjacent tiles
+        for (int dx = -1 ; dx < 2 ; dx++) {
+            for (int dy = -1 ; dy < 2 ; dy++) {
+                // Add all the meadow zones of the adjacent tiles to the set adjacentMeadows
+                PlacedTile placedTile = tileAt(pos.translated(dx, dy));
+                if (Objects.isNull(placedTile)) continue;
+                adjacentMeadows.addAll(placedTile.meadowZones());
+            }
+        }
+
+        // Find the meadow area containing the zone and retain only the intersecting meadow zones
+        Area<Zone.Meadow> meadowArea = meadowArea(meadowZone);
+        Set<Zone.Meadow> meadowSet = new HashSet<>(meadowArea.zones());
+        meadowSet.retainAll(adjacentMeadows);
+
+        return new Area<>(meadowSet, meadowArea.occupants(), 0);
+    }
+
+    /**
+     * Used to return the number of occupants of the given kind of the given player
+     * @param player The player to find the number of occupants for
+     * @param occupantKind The kind of the occupant to find the number of
+     * @return The number of occupants of the given kind of the given player
+     */
+    public int occupantCount(PlayerColor player, Occupant.Kind occupantKind) {
+        return occupantCounts[occupantCountIndex(player, occupantKind)];
+    }
+
+    /**
+     * Used to return the index of the number of occupants of the given kind of the given player in occupantCounts
+     * @param player The player
+     * @param occupantKind The kind of the occupants
+     * @return The index in the occupantCounts array
+     */
+    private static int occupantCountIndex(PlayerColor player, Occupant.Kind occupantKind) {
+        return player.ordinal() * OCCUPANT_KIND_COUNT + occupantKind.ordinal();
+    }
+
+    /**
+     * Used to return the set of the positions where a tile can be inserted
+     * @return The set of the positions where a tile can be inserted
+     */
+    public Set<Pos> insertionPositions() {
+        Set<Pos> insertionPositions = this.insertionPositions;
+        if (Objects.isNull(insertionPositions))
+            this.insertionPositions = insertionPositions = Set.copyOf(sortedInsertionPositions());
+        return insertionPositions;
+    }
+
+    /**
+     * Used to return the positions where a tile can be inserted, sorted by x and then by y
+     * @return The unmodifiable list of the positions where a tile can be inserted, sorted by x and then by y
+     */
+    public List<Pos> sortedInsertionPositions() {
+        List<Pos> sortedInsertionPositions = this.sortedInsertionPositions;
+        if (Objects.isNull(sortedInsertionPositions)) {
+            List<Pos> positions = new ArrayList<>();
+            for (int x = -REACH; x <= REACH; x++)
+                for (int y = -REACH; y <= REACH; y++)
+                    if (isInFringe(indexOf(x, y))) positions.add(new Pos(x, y));
+            this.sortedInsertionPositions = sortedInsertionPositions = List.copyOf(positions);
+        }
+        return sortedInsertionPositions;
+    }
+
+    /**
+     * Used to indicate if a tile can be inserted at the given position
+     * @param pos The position to check
+     * @return True if the position is empty and adjacent to a placed tile, false otherwise
+     */
+    public boolean isInsertionPosition(Pos pos) {
+        return isInside(pos) && isInFringe(indexOf(pos));
+    }
+
+    /** Used to return the last placed tile of the board or null if there is none */
+    public PlacedTile lastPlacedTile() {
+        return placedTilesIndex.length > 0 ? placedTiles[placedTilesIndex[placedTilesIndex.length - 1]] : null;
+    }
+
+    /**
+     * Used to return the set of the forests closed by the last placed tile
+     * @return The set of the forests closed by the last placed tile
+     */
+    public Set<Area<Zone.Forest>> forestsClosedByLastTile() {
+        PlacedTile lastPlacedTile = lastPlacedTile();
+        if (Objects.isNull(lastPlacedTile)) return Set.of();
+
+        return closedAreas(lastPlacedTile().forestZones(), this::forestArea);
+    }
+
+    /**
+     * Used to return the set of the rivers closed by the last placed tile
+     * @return The set of the rivers closed by the last placed tile
+     */
+    public Set<Area<Zone.River>> riversClosedByLastTile() {
+        PlacedTile lastPlacedTile = lastPlacedTile();
+        if (Objects.isNull(lastPlacedTile)) return Set.of();
+
+        return closedAreas(lastPlacedTile().riverZones(), this::riverArea);
+    }
+
+    /**
+     * Used to return the set of areas (forests or rivers) closed by the last placed tile
+     * @param zones The set of zones to map to their area
+     * @param areaMapper The function to map a zone to its area
+     * @return The set of areas closed by the last placed tile (forests or rivers)
+     * @param <S> The type of the zone (forest or river)
+     */
+    private <S extends Zone> Set<Area<S>> closedAreas(Set<S> zones, Function<S, Area<S>> areaMapper) {
+        // Return the set of the closed rivers
+        return zones.stream()
+                .map(areaMapper)
+                .filter(Area::isClosed)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Used to indicate if the given tile can be added to the board
+     * @param tile The tile to add to the board
+     * @return True if the given tile can be added to the board, false otherwise
+     */
+    public boolean canAddTile(PlacedTile tile) {
+        // Check if the tile is on an insertion position and matches its neighbours
+        Pos pos = tile.pos();
+        return isInsertionPosition(pos) && fitsNeighbours(tile.sideKinds(), neighbourSideKinds(pos.x(), pos.y()));
+    }
+
+    /**
+     * Used to indicate if the given tile can be placed on the board with an eventual rotation
+     * @param tile The tile to place on the board
+     * @return True if the given tile can be placed on the board with an eventual rotation, false otherwise
+     */
+    public boolean couldPlaceTile(Tile tile) {
+        // Iterate over the set bits of the fringe
+        for (int word = 0; word < fringe.length; word++) {
+            for (long bits = fringe[word]; bits != 0; bits &= bits - 1) {
+                int index = word * BITS_PER_WORD + Long.numberOfTrailingZeros(bits);
+                int x = index % TILES_PER_SIDE - REACH;
+                int y = index / TILES_PER_SIDE - REACH;
+                if (fitsNeighboursWithAnyRotation(tile, neighbourSideKinds(x, y))) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Used to indicate if the given tile can be placed on the board at the given position with an eventual rotation
+     * @param tile The tile to place on the board
+     * @param pos The position where to place the tile, or null to consider every insertion position
+     * @return True if the given tile can be placed on the board with an eventual rotation, false otherwise
+     */
+    public boolean couldPlaceTile(Tile tile, Pos pos) {
+        if (Objects.isNull(pos)) return couldPlaceTile(tile);
+        return isInsertionPosition(pos) && fitsNeighboursWithAnyRotation(tile, neighbourSideKinds(pos.x(), pos.y()));
+    }
+
+    /**
+     * Used to compute all the legal placements of the given tile on the board in a single pass over the fringe
+     * @param tile The tile to place on the board
+     * @return The legal placements of the given tile, i.e. the legal rotations at each insertion position
+     */
+    public LegalPlacements legalPlacements(Tile tile) {
+        byte[] rotationMasks = new byte[TOTAL_TILE_COUNT];
+        int count = 0;
+
+        // Iterate over the set bits of the fringe and check every rotation of the tile
+        for (int word = 0; word < fringe.length; word++) {
+            for (long bits = fringe[word]; bits != 0; bits &= bits - 1) {
+                int index = word * BITS_PER_WORD + Long.numberOfTrailingZeros(bits);
+                int x = index % TILES_PER_SIDE - REACH;
+                int y = index / TILES_PER_SIDE - REACH;
+                int neighbourSideKinds = neighbourSideKinds(x, y);
+                for (Rotation r : Rotation.ALL)
+                    if (fitsNeighbours(tile.sideKinds(r), neighbourSideKinds))
+                        rotationMasks[index] |= (byte) (1 << r.ordinal());
+                if (rotationMasks[index] != 0) count++;
+            }
+        }
+
+        // Collect the positions with at least one legal rotation, sorted by x and then by y
+        List<Pos> positions = new ArrayList<>(count);
+        for (Pos pos : sortedInsertionPositions())
+            if (rotationMasks[indexOf(pos)] != 0) positions.add(pos);
+
+        return new LegalPlacements(tile, rotationMasks, List.copyOf(positions));
+    }
+
+    /**
+     * Used to get the packed encoding of the kinds of the sides of the neighbours facing the given position,
+     * the side of the neighbour in the direction d being stored at the same bits as the side of a tile facing d
+     * in {@link Tile#sideKinds(Rotation)}, and the bits of the directions without neighbour being 0
+     * @param x The x coordinate of the position
+     * @param y The y coordinate of the position
+     * @return The packed encoding of the kinds of the sides of the neighbours facing the position
+     */
+    private int neighbourSideKinds(int x, int y) {
+        int neighbourSideKinds = 0;
+        for (int d = 0; d < Direction.COUNT; d++) {
+            int nX = x + NEIGHBOUR_DX[d];
+            int nY = y + NEIGHBOUR_DY[d];
+            if (Math.abs(nX) > REACH || Math.abs(nY) > REACH) continue;
+
+            PlacedTile neighbour = placedTiles[indexOf(nX, nY)];
+            if (Objects.isNull(neighbour)) continue;
+
+            // The side of the neighbour facing the position is the one in the opposite direction
+            int opposite = (d + Direction.COUNT / 2) % Direction.COUNT;
+            int kind = neighbour.sideKinds() >>> Tile.SIDE_KIND_BITS * opposite & Tile.SIDE_KIND_MASK;
+            neighbourSideKinds |= kind << Tile.SIDE_KIND_BITS * d;
+        }
+        return neighbourSideKinds;
+    }
+
+    /**
+     * Used to check if a tile with the given side kinds matches the sides of its neighbours
+     * @param sideKinds The packed encoding of the kinds of the sides of the tile
+     * @param neighbourSideKinds The packed encoding of the kinds of the sides of the neighbours facing the tile
+     * @return True if every side of the tile is of the same kind as the side of the neighbour it faces
+     */
+    private static boolean fitsNeighbours(int sideKinds, int neighbourSideKinds) {
+        // Spread the non-zero bits of each side kind of the neighbours to get the mask of the directions to check
+        int neighbours = (neighbourSideKinds | neighbourSideKinds >>> 1) & 0b01010101;
+        neighbours |= neighbours << 1;
+        return (sideKinds & neighbours) == neighbourSideKinds;
+    }
+
+    /**
+     * Used to check if the given tile matches the sides of its neighbours with at least one rotation
+     * @param tile The tile to check
+     * @param neighbourSideKinds The packed encoding of the kinds of the sides of the neighbours facing the tile
+     * @return True if the tile matches the sides of its neighbours with at least one rotation
+     */
+    private static boolean fitsNeighboursWithAnyRotation(Tile tile, int neighbourSideKinds) {
+        for (Rotation r : Rotation.ALL)
+            if (fitsNeighbours(tile.sideKinds(r), neighbourSideKinds)) return true;
+        return false;
+    }
+
+    /**
+     * Used to return a new board with the given tile added to it
+     * @param tile The tile to add to the board
+     * @return A new board with the given tile added to it
+     * @throws IllegalArgumentException If the tile is not empty and cannot be added to the board
+     */
+    public Board withNewTile(PlacedTile tile) {
+        Preconditions.checkArgument(placedTilesIndex.length == 0 || canAddTile(tile));
+
+        // Add the new placed tile to the array of placed
+        // tiles and update the placedTilesIndex array
+        PlacedTile[] newPlacedTiles = Arrays.copyOf(placedTiles, placedTiles.length);
+        int[] newPlacedTilesIndex = Arrays.copyOf(placedTilesIndex, placedTilesIndex.length + 1);
+
+        // Index of the new placed tile in the placedTiles array
+        int placedTileIndex = indexOf(tile.pos());
+
+        newPlacedTilesIndex[newPlacedTilesIndex.length - 1] = placedTileIndex;
+        newPlacedTiles[placedTileIndex] = tile;
+
+        // Map the id of the new tile to its index, growing the array if needed
+        int[] newTileIndexById = Arrays.copyOf(tileIndexById, Math.max(tileIndexById.length, tile.id() + 1));
+        Arrays.fill(newTileIndexById, tileIndexById.length, newTileIndexById.length, NO_INDEX);
+        newTileIndexById[tile.id()] = placedTileIndex;
+
+        // Update the fringe: the new position is now occupied and its empty neighbours become insertion positions
+        long[] newFringe = fringe.clone();
+        newFringe[placedTileIndex / BITS_PER_WORD] &= ~(1L << placedTileIndex);
+        for (Direction d : Direction.ALL) {
+            Pos neighbourPos = tile.pos().neighbor(d);
+            if (isInside(neighbourPos) && Objects.isNull(tileAt(neighbourPos))) {
+                int neighbourIndex = indexOf(neighbourPos);
+                newFringe[neighbourIndex / BITS_PER_WORD] |= 1L << neighbourIndex;
+            }
+        }
+
+        // Add the new tile to the zone partitions
+        ZonePartitions.Builder newZonePartitions = new ZonePartitions.Builder(zonePartitions);
+        newZonePartitions.addTile(tile.tile());
+
+        // If possible, connect the sides of the new tile with the sides of its neighbours
+        for (Direction d : Direction.ALL) {
+            PlacedTile neighbour = tileAt(tile.pos().neighbor(d));
+            // If the neighbour exists and the sides are of the same kind, connect them
+            if (Objects.nonNull(neighbour) && neighbour.side(d.opposite()).isSameKindAs(tile.side(d)))
+                newZonePartitions.connectSides(tile.side(d), neighbour.side(d.opposite()));
+        }
+
+        // Add the occupant the new tile may already have to the occupants of the board
+        Set<Occupant> newOccupants = occupants;
+        int[] newOccupantCounts = occupantCounts;
+        long newZobristHash = zobristHash ^ Zobrist.tileKey(tile);
+        if (Objects.nonNull(tile.occupant())) {
+            newOccupants = new HashSet<>(occupants);
+            newOccupants.add(tile.occupant());
+            newOccupants = Set.copyOf(newOccupants);
+            newOccupantCounts = occupantCounts.clone();
+            newOccupantCounts[occupantCountIndex(tile.placer(), tile.occupant().kind())]++;
+            newZobristHash ^= Zobrist.occupantKey(tile.occupant());
+        }
+
+        return new Board(newPlacedTiles, newPlacedTilesIndex, newTileIndexById, newFringe,
+                newZonePartitions.build(), cancelledAnimals, newOccupants, newOccupantCounts, newZobristHash);
+    }
+
+    /**
+     * Used to return a board like this one but with the given occupant added to it
+     * @param occupant The occupant to add to the board
+     * @return A board like this one but with the given occupant added to it
+     * @throws IllegalArgumentException If the tile of the occupant is already occupied
+     */
+    public Board withOccupant(Occupant occupant) {
+        PlacedTile occupiedTile = tileWithId(Zone.tileId(occupant.zoneId()));
+        Preconditions.checkArgument(Objects.isNull(occupiedTile.occupant()));
+        PlacedTile placedTile = occupiedTile.withOccupant(occupant);
+
+        // Replace the tile that has the given occupant by a new placed tile with the given occupant
+        PlacedTile[] newPlacedTiles = Arrays.copyOf(placedTiles, placedTiles.length);
+        newPlacedTiles[indexOf(placedTile.pos())] = placedTile;
+
+        // Add the occupant to the zone partitions
+        ZonePartitions.Builder newZonePartitions = new ZonePartitions.Builder(zonePartitions);
+        Zone zoneOfOccupant = placedTile.zoneWithId(occupant.zoneId());
+        if (Objects.nonNull(zoneOfOccupant))
+            newZonePartitions.addInitialOccupant(placedTile.placer(), occupant.kind(), zoneOfOccupant);
+
+        // Add the occupant to the occupants of the board
+        Set<Occupant> newOccupants = new HashSet<>(occupants);
+        newOccupants.add(occupant);
+        int[] newOccupantCounts = occupantCounts.clone();
+        newOccupantCounts[occupantCountIndex(placedTile.placer(), occupant.kind())]++;
+
+        return new Board(newPlacedTiles, placedTilesIndex, tileIndexById, fringe, newZonePartitions.build(),
+                cancelledAnimals, Set.copyOf(newOccupants), newOccupantCounts,
+                zobristHash ^ Zobrist.occupantKey(occupant));
+    }
+
+    /**
+     * Used to remove a certain occupant from the board
+     * @param occupant The occupant to remove from the board
+     * @return A new board without the given occupant
+     */
+    public Board withoutOccupant(Occupant occupant) {
+        int tileId = Zone.tileId(occupant.zoneId());
+        PlacedTile placedTile = tileWithId(tileId);
+
+        // Replace the tile that has the given occupant by a new placed tile without the given occupant
+        PlacedTile[] newPlacedTiles = Arrays.copyOf(placedTiles, placedTiles.length);
+        newPlacedTiles[indexOf(placedTile.withNoOccupant().pos())] = placedTile.withNoOccupant();
+
+        // Remove the occupant from the zone partitions
+        ZonePartitions.Builder newZonePartitions = new ZonePartitions.Builder(zonePartitions);
+        // If the zone of the occupant exists and is occupied, remove one pawn
+        Zone zoneOfOccupant = placedTile.zoneWithId(occupant.zoneId());
+        if (Objects.nonNull(zoneOfOccupant))
+            newZonePartitions.removePawn(placedTile.placer(), zoneOfOccupant);
+
+        // Remove the occupant of the tile from the occupants of the board
+        Set<Occupant> newOccupants = occupants;
+        int[] newOccupantCounts = occupantCounts;
+        long newZobristHash = zobristHash;
+        Occupant removedOccupant = placedTile.occupant();
+        if (Objects.nonNull(removedOccupant)) {
+            newOccupants = new HashSet<>(occupants);
+            newOccupants.remove(removedOccupant);
+            newOccupants = Set.copyOf(newOccupants);
+            newOccupantCounts = occupantCounts.clone();
+            newOccupantCounts[occupantCountIndex(placedTile.placer(), removedOccupant.kind())]--;
+            newZobristHash ^= Zobrist.occupantKey(removedOccupant);
+        }
+
+        return new Board(newPlacedTiles, placedTilesIndex, tileIndexById, fringe, newZonePartitions.build(),
+                cancelledAnimals, newOccupants, newOccupantCounts, newZobristHash);
+    }
+
+    /**
+     * Used to return a new board with the gatherers and fishers of the given forests and rivers removed
+     * @param forests The forests to remove the gatherers of
+     * @param rivers The rivers to remove the fishers of
+     * @return A new board with the gatherers and fishers of the given forests and rivers removed
+     */
+    public Board withoutGatherersOrFishersIn(Set<Area<Zone.Forest>> forests, Set<Area<Zone.River>> rivers) {
+        if (forests.isEmpty() && rivers.isEmpty()) return this;
+        ZonePartitions.Builder newZonePartitions = new ZonePartitions.Builder(zonePartitions);
+
+        // Copy the placed tiles and the occupants, since the tiles of this board must not be modified
+        PlacedTile[] newPlacedTiles = Arrays.copyOf(placedTiles, placedTiles.length);
+        Set<Occupant> newOccupants = new HashSet<>(occupants);
+        int[] newOccupantCounts = occupantCounts.clone();
+
+        // Remove the gatherers from the given forests and the fishers from the given rivers
+        clearOccupants(forests, newZonePartitions::clearGatherers, newPlacedTiles, newOccupants, newOccupantCounts);
+        clearOccupants(rivers, newZonePartitions::clearFishers, newPlacedTiles, newOccupants, newOccupantCounts);
+
+        // Remove the keys of the cleared occupants from the hash
+        long newZobristHash = zobristHash;
+        for (Occupant occupant : occupants)
+            if (!newOccupants.contains(occupant)) newZobristHash ^= Zobrist.occupantKey(occupant);
+
+        return new Board(newPlacedTiles, placedTilesIndex, tileIndexById, fringe, newZonePartitions.build(),
+                cancelledAnimals, Set.copyOf(newOccupants), newOccupantCounts, newZobristHash);
+    }
+
+    /**
+     * Used to clear the gatherers or fishers of the given areas from the given placed tiles and occupants
+     * @param areas The areas to clear the gatherers and fishers from
+     * @param clearOccupants The consumer that clears the occupants of the area
+     * @param placedTiles The placed tiles of the new board, modified in place
+     * @param occupants The occupants of the new board, modified in place
+     * @param occupantCounts The number of occupants of each player and kind of the new board, modified in place
+     * @param <S> The type of the zone (forest or river)
+     */
+    private <S extends Zone> void clearOccupants(Set<Area<S>> areas, Consumer<Area<S>> clearOccupants,
+                                                 PlacedTile[] placedTiles, Set<Occupant> occupants,
+                                                 int[] occupantCounts) {
+        for (Area<S> area : areas) {
+            for (int id : area.tileIds()) {
+                PlacedTile placedTile = placedTiles[tileIndexById[id]];
+                Occupant occupant = placedTile.occupant();
+                if (Objects.isNull(occupant) || occupant.kind() != Occupant.Kind.PAWN) continue;
+                if (area.containsZoneWithId(occupant.zoneId())) {
+                    placedTiles[tileIndexById[id]] = placedTile.withNoOccupant();
+                    occupants.remove(occupant);
+                    occupantCounts[occupantCountIndex(placedTile.placer(), Occupant.Kind.PAWN)]--;
+                }
+            }
+            clearOccupants.accept(area);
+        }
+    }
+
+    /**
+     * Used to return a new board with the given animals added to the cancelled animals of the board
+     * @param newlyCancelledAnimals The newly cancelled animals to add to the board
+     * @return A new board with the newly cancelled animals added to the cancelled animals of the board
+     */
+    public Board withMoreCancelledAnimals(Set<Animal> newlyCancelledAnimals) {
+        Set<Animal> newCancelledAnimals = new HashSet<>(cancelledAnimals);
+        long newZobristHash = zobristHash;
+        for (Animal animal : newlyCancelledAnimals)
+            if (newCancelledAnimals.add(animal)) newZobristHash ^= Zobrist.cancelledAnimalKey(animal.id());
+        return new Board(placedTiles, placedTilesIndex, tileIndexById, fringe, zonePartitions,
+                Collections.unmodifiableSet(newCancelledAnimals), occupants, occupantCounts, newZobristHash);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        // Easier cases: return false if o is null or not an instance of Board, and true if o is this
+        if (!(o instanceof Board board)) return false;
+        else if (o == this) return true;
+        // Boards with different hashes cannot be equal
+        else if (zobristHash != board.zobristHash) return false;
+        // Deep copy: compare the placed tiles, placed tiles index, zone partitions and cancelled animals
+        else return Arrays.equals(placedTiles, board.placedTiles) && Arrays.equals(placedTilesIndex, board.placedTilesIndex)
+                    && zonePartitions.equals(board.zonePartitions) && cancelledAnimals.equals(board.cancelledAnimals);
+    }
+
+    @Override
+    public int hashCode() {
+        // Equal boards have the same placed tiles, occupants and cancelled animals, hence the same Zobrist hash
+        return Long.hashCode(zobristHash);
+    }
+
+    /**
+     * Used to return the Zobrist hash of the board, i.e. the exclusive or of the keys of its placed tiles
+     * (tile, rotation and position), of its occupants and of its cancelled animals, maintained incrementally
+     * @return The Zobrist hash of the board
+     */
+    public long zobristHash() {
+        return zobristHash;
+    }
+
+
+    /**
+     * Used to return the index of the placed tile in the placedTiles array
+     * @param pos The position of the placed tile
+     * @return The index of the placed tile in the placedTiles array
+     */
+    private static int indexOf(Pos pos) {
+        return indexOf(pos.x(), pos.y());
+    }
+
+    /**
+     * Used to return the index of the placed tile at the given coordinates in the placedTiles array
+     * @param x The x coordinate of the placed tile
+     * @param y The y coordinate of the placed tile
+     * @return The index of the placed tile in the placedTiles array
+     */
+    private static int indexOf(int x, int y) {
+        return TILES_PER_SIDE * (REACH + y) + REACH + x;
+    }
+
+    /**
+     * Represents the legal placements of a tile on a board, stored as a mask of the legal rotations for each position
+     * @author Adam Bekkar (379476)
+     */
+    public static final class LegalPlacements {
+        /** The tile to place */
+        private final Tile tile;
+        /** The mask of the legal rotations (bit of index rotation ordinal) indexed like the placedTiles array */
+        private final byte[] rotationMasks;
+        /** The positions where the tile can be placed with at least one rotation, sorted by x and then by y */
+        private final List<Pos> positions;
+
+        /**
+         * Used to construct the legal placements of a tile
+         * @param tile The tile to place
+         * @param rotationMasks The mask of the legal rotations indexed like the placedTiles array
+         * @param positions The positions where the tile can be placed, sorted by x and then by y
+         */
+        private LegalPlacements(Tile tile, byte[] rotationMasks, List<Pos> positions) {
+            this.tile = tile;
+            this.rotationMasks = rotationMasks;
+            this.positions = positions;
+        }
+
+        /**
+         * Used to get the mask of the legal rotations at the given position
+         * @param pos The position
+         * @return The mask of the legal rotations, the bit of index r.ordinal() being set if r is legal
+         */
+        public int rotationMask(Pos pos) {
+            return isInside(pos) ? rotationMasks[indexOf(pos)] : 0;
+        }
+
+        /**
+         * Used to check if the tile can be placed at the given position with the given rotation
+         * @param pos The position
+         * @param rotation The rotation
+         * @return True if the placement is legal, false otherwise
+         */
+        public boolean isLegal(Pos pos, Rotation rotation) {
+            return (rotationMask(pos) & 1 << rotation.ordinal()) != 0;
+        }
+
+        /**
+         * Used to check if the tile can be placed at the given position with at least one rotation
+         * @param pos The position
+         * @return True if at least one rotation is legal at the given position, false otherwise
+         */
+        public boolean isLegal(Pos pos) {
+            return rotationMask(pos) != 0;
+        }
+
+        /**
+         * Used to check if the tile cannot be placed anywhere
+         * @return True if there is no legal placement, false otherwise
+         */
+        public boolean isEmpty() {
+            return positions.isEmpty();
+        }
+
+        /**
+         * Used to get the positions where the tile can be placed with at least one rotation
+         * @return The unmodifiable list of the positions, sorted by x and then by y
+         */
+        public List<Pos> positions() {
+            return positions;
+        }
+
+        /**
+         * Used to get all the legal placed tiles, sorted by position and then by rotation
+         * @param placer The player placing the tile
+         * @return The list of the legal placed tiles
+         */
+        public List<PlacedTile> placedTiles(PlayerColor placer) {
+            List<PlacedTile> placedTiles = new ArrayList<>();
+            for (Pos pos : positions)
+                for (Rotation r : Rotation.ALL)
+                    if (isLegal(pos, r)) placedTiles.add(new PlacedTile(tile, placer, r, pos));
+            return placedTiles;
+        }
+    }
+
+    /**
+     * Used to check if the given position is inside the board
+     * @param pos The position to check
+     * @return True if the position is inside the board, false otherwise
+     */
+    private static boolean isInside(Pos pos) {
+        return Math.abs(pos.x()) <= REACH && Math.abs(pos.y()) <= REACH;
+    }
+
+    /**
+     * Used to check if the position at the given index of the placedTiles array is in the fringe
+     * @param index The index of the position
+     * @return True if a tile can be inserted at the position, false otherwise
+     */
+    private boolean isInFringe(int index) {
+        return (fringe[index / BITS_PER_WORD] & 1L << index) != 0;
+    }
+}
\ No newline at end of file
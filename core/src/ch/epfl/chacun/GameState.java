@@ -1,7 +1,5 @@
 package ch.epfl.chacun;
 
-import ch.epfl.chacun.extensions.gui.GameUI;
-
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -13,17 +11,13 @@ import java.util.stream.Collectors;
  * @param board The board containing the tiles and occupants placed on it
  * @param nextAction The next action to be taken by the current player
  * @param messageBoard The message board containing the messages displayed to the players up to this point
+ * @param lastAction The action that led to this state, START_GAME if there is none
+ * @param lastOccupant The occupant placed or removed by the action that led to this state, or null if there is none
  * @author Antoine Bastide (375407)
  * @author Adam Bekkar (379476)
  */
-public record GameState(List<PlayerColor> players, TileDecks tileDecks, Tile tileToPlace,
-                        Board board, Action nextAction, MessageBoard messageBoard) {
-    /** The last action played in the game */
-    private static Action lastAction = Action.START_GAME;
-    /** The winners of the game and their score */
-    private static Map.Entry<List<PlayerColor>, Integer> playerWinners =
-            new AbstractMap.SimpleEntry<>(new ArrayList<>(), 0);
-
+public record GameState(List<PlayerColor> players, TileDecks tileDecks, Tile tileToPlace, Board board,
+                        Action nextAction, MessageBoard messageBoard, Action lastAction, Occupant lastOccupant) {
     /**
      * Used to create a new state of the game
      * @param players The list of players in the game in the order they play, with the first player being the current player
@@ -32,27 +26,39 @@ public record GameState(List<PlayerColor> players, TileDecks tileDecks, Tile til
      * @param board The board containing the tiles and occupants placed on it
      * @param nextAction The next action to be taken by the current player
      * @param messageBoard The message board containing the messages displayed to the players up to this point
+     * @param lastAction The action that led to this state, START_GAME if there is none
+     * @param lastOccupant The occupant placed or removed by the action that led to this state, or null if there is none
      */
     public GameState {
         Preconditions.checkArgument(players.size() > 1);
         Preconditions.checkArgument(Objects.isNull(tileToPlace) ^ nextAction == Action.PLACE_TILE);
+        Objects.requireNonNull(lastAction);
         players = List.copyOf(players);
     }
 
     /**
-     * Used to get the last action played in the game
-     * @return The last action played in the game
+     * Used to create a new state of the game that has not been reached by any action
+     * @param players The list of players in the game in the order they play, with the first player being the current player
+     * @param tileDecks The decks of tiles available to the players
+     * @param tileToPlace The tile to place on the board, or null if no tile is currently being placed
+     * @param board The board containing the tiles and occupants placed on it
+     * @param nextAction The next action to be taken by the current player
+     * @param messageBoard The message board containing the messages displayed to the players up to this point
      */
-    public Action lastAction() {
-        return lastAction;
+    public GameState(List<PlayerColor> players, TileDecks tileDecks, Tile tileToPlace,
+                     Board board, Action nextAction, MessageBoard messageBoard) {
+        this(players, tileDecks, tileToPlace, board, nextAction, messageBoard, Action.START_GAME, null);
     }
 
     /**
      * Used to get the winners of the game and their score
-     * @return The winners of the game and their score
+     * @return The winners of the game sorted by color and their score,
+     * or an empty list and 0 if the game has not ended yet
      */
     public Map.Entry<List<PlayerColor>, Integer> getWinners() {
-        return Map.Entry.copyOf(playerWinners);
+        if (nextAction != Action.END_GAME) return Map.entry(List.of(), 0);
+        int maxScore = maxScore(messageBoard.points());
+        return Map.entry(winners(messageBoard.points(), maxScore).stream().sorted().toList(), maxScore);
     }
 
     /** Represents the next action to be taken by the current player */
@@ -89,6 +95,27 @@ public record GameState(List<PlayerColor> players, TileDecks tileDecks, Tile til
         return Occupant.occupantsCount(kind) - board.occupantCount(player, kind);
     }
 
+    /**
+     * Used to get the Zobrist hash of the state of the game, combining the hash of the board with the key of the
+     * decks cursor, the tile to place, the current player and the next action, the message board being ignored
+     * @return The Zobrist hash of the state of the game
+     */
+    public long zobristHash() {
+        return board.zobristHash() ^ Zobrist.stateKey(tileDecks.deckSize(Tile.Kind.NORMAL),
+                tileDecks.deckSize(Tile.Kind.MENHIR), tileToPlace, players.getFirst(), nextAction);
+    }
+
+    /**
+     * Used to get the same state of the game whose new messages are produced by the given text maker, for instance
+     * a {@link TextMakerEmpty} when the states are only built to be searched
+     * @param textMaker The text maker
+     * @return The state of the game with the given text maker
+     */
+    public GameState withTextMaker(TextMaker textMaker) {
+        return new GameState(players, tileDecks, tileToPlace, board, nextAction,
+                messageBoard.withTextMaker(textMaker), lastAction, lastOccupant);
+    }
+
     /**
      * Used to get the set of potential occupants of the last placed tile
      * @return The set of potential occupants of the last placed tile
@@ -103,23 +130,14 @@ public record GameState(List<PlayerColor> players, TileDecks tileDecks, Tile til
             // Check if the player has any free occupant of the given kind
             if (freeOccupantsCount(currentPlayer(), o.kind()) == 0) return true;
 
-            return board.tileWithId(Zone.tileId(o.zoneId())).tile().zones().stream().anyMatch(
-                    zone -> {
-                        if (zone.id() != o.zoneId()) return false;
-                        return switch (zone) {
-                            case Zone.Meadow meadow when o.kind() == Occupant.Kind.PAWN ->
-                                    board.meadowArea(meadow).isOccupied();
-                            case Zone.Forest forest when o.kind() == Occupant.Kind.PAWN ->
-                                    board.forestArea(forest).isOccupied();
-                            case Zone.River river when o.kind() == Occupant.Kind.PAWN ->
-                                    board.riverArea(river).isOccupied();
-                            case Zone.River river when o.kind() == Occupant.Kind.HUT ->
-                                    board.riverSystemArea(river).isOccupied();
-                            case Zone.Lake lake when o.kind() == Occupant.Kind.HUT ->
-                                    board.riverSystemArea(lake).isOccupied();
-                            default -> false;
-                        };
-                    });
+            return switch (placedTile.zoneWithId(o.zoneId())) {
+                case Zone.Meadow meadow when o.kind() == Occupant.Kind.PAWN -> board.meadowArea(meadow).isOccupied();
+                case Zone.Forest forest when o.kind() == Occupant.Kind.PAWN -> board.forestArea(forest).isOccupied();
+                case Zone.River river when o.kind() == Occupant.Kind.PAWN -> board.riverArea(river).isOccupied();
+                case Zone.River river when o.kind() == Occupant.Kind.HUT -> board.riverSystemArea(river).isOccupied();
+                case Zone.Lake lake when o.kind() == Occupant.Kind.HUT -> board.riverSystemArea(lake).isOccupied();
+                default -> false;
+            };
         });
 
         return Set.copyOf(occupants);
@@ -150,7 +168,6 @@ public record GameState(List<PlayerColor> players, TileDecks tileDecks, Tile til
      */
     public GameState withPlacedTile(PlacedTile placedTile) {
         Preconditions.checkArgument(nextAction == Action.PLACE_TILE && Objects.isNull(placedTile.occupant()));
-        lastAction = Action.PLACE_TILE;
         // Update the board, the message board and the tile decks
         Board nB = board.withNewTile(placedTile);
         MessageBoard nMB = messageBoard;
@@ -175,7 +192,8 @@ public record GameState(List<PlayerColor> players, TileDecks tileDecks, Tile til
                 }
                 case SHAMAN -> {
                     if (nB.occupantCount(currentPlayer(), Occupant.Kind.PAWN) > 0)
-                        return new GameState(players, tileDecks, null, nB, Action.RETAKE_PAWN, nMB);
+                        return new GameState(players, tileDecks, null, nB, Action.RETAKE_PAWN, nMB,
+                                Action.PLACE_TILE, null);
                 }
             }
         }
@@ -184,8 +202,8 @@ public record GameState(List<PlayerColor> players, TileDecks tileDecks, Tile til
         // Check if the player can occupy a tile, or tally the points at the end of the turn
         GameState tempGameState = new GameState(players, tileDecks, placedTile.tile(), nB, Action.PLACE_TILE, nMB);
         if (!tempGameState.lastTilePotentialOccupants().isEmpty())
-            return new GameState(players, tileDecks, null, nB, Action.OCCUPY_TILE, nMB);
-        else return tallyTurnPoints(nB, nMB);
+            return new GameState(players, tileDecks, null, nB, Action.OCCUPY_TILE, nMB, Action.PLACE_TILE, null);
+        else return tallyTurnPoints(nB, nMB, Action.PLACE_TILE, null);
     }
 
     /**
@@ -200,12 +218,11 @@ public record GameState(List<PlayerColor> players, TileDecks tileDecks, Tile til
                 (Objects.isNull(occupant) || occupant.kind() == Occupant.Kind.PAWN));
         Board newBoard = Objects.nonNull(occupant) ? board.withoutOccupant(occupant) : board;
 
-        lastAction = Action.RETAKE_PAWN;
-        GameUI.lastOccupant.set(occupant);
         // Check if the player can occupy a tile, or tally the points at the end of the turn
         if (!lastTilePotentialOccupants().isEmpty())
-            return new GameState(players, tileDecks, null, newBoard, Action.OCCUPY_TILE, messageBoard);
-        else return tallyTurnPoints(newBoard, messageBoard);
+            return new GameState(players, tileDecks, null, newBoard, Action.OCCUPY_TILE, messageBoard,
+                    Action.RETAKE_PAWN, occupant);
+        else return tallyTurnPoints(newBoard, messageBoard, Action.RETAKE_PAWN, occupant);
     }
 
     /**
@@ -216,9 +233,8 @@ public record GameState(List<PlayerColor> players, TileDecks tileDecks, Tile til
      */
     public GameState withNewOccupant(Occupant occupant) {
         Preconditions.checkArgument(nextAction == Action.OCCUPY_TILE);
-        lastAction = Action.OCCUPY_TILE;
-        GameUI.lastOccupant.set(occupant);
-        return tallyTurnPoints(Objects.isNull(occupant) ? board : board.withOccupant(occupant), messageBoard);
+        return tallyTurnPoints(Objects.isNull(occupant) ? board : board.withOccupant(occupant), messageBoard,
+                Action.OCCUPY_TILE, occupant);
     }
 
     /**
@@ -299,9 +315,12 @@ public record GameState(List<PlayerColor> players, TileDecks tileDecks, Tile til
      * Used to tally the points at the end of a player's turn
      * @param newBoard The new state of the board
      * @param newMessageBoard The new state of the message board
+     * @param lastAction The action that ended the turn
+     * @param lastOccupant The occupant placed or removed by the action that ended the turn, or null
      * @return The new state of the game after tallying the points
      */
-    private GameState tallyTurnPoints(Board newBoard, MessageBoard newMessageBoard) {
+    private GameState tallyTurnPoints(Board newBoard, MessageBoard newMessageBoard, Action lastAction,
+                                      Occupant lastOccupant) {
         // Create the new tile decks with the normal top tile drawn
         TileDecks normalDeck = tileDecks
                 .withTopTileDrawnUntil(Tile.Kind.NORMAL, newBoard::couldPlaceTile);
@@ -344,7 +363,8 @@ public record GameState(List<PlayerColor> players, TileDecks tileDecks, Tile til
         List<PlayerColor> newPlayers = new ArrayList<>(players);
         if (!secondTurn) Collections.rotate(newPlayers, -1);
         newTileDecks = newTileDecks.withTopTileDrawn(tileKind);
-        return new GameState(newPlayers, newTileDecks, tile, newBoard, Action.PLACE_TILE, newMessageBoard);
+        return new GameState(newPlayers, newTileDecks, tile, newBoard, Action.PLACE_TILE, newMessageBoard,
+                lastAction, lastOccupant);
     }
 
     /**
@@ -382,18 +402,32 @@ public record GameState(List<PlayerColor> players, TileDecks tileDecks, Tile til
 
         // Find the winners
         Map<PlayerColor, Integer> results = newMessageBoard.points();
-        int maxScore = results.values().stream().max(Integer::compare).orElse(0);
-        Set<PlayerColor> winners;
-        if (maxScore != 0) {
-            winners = results.entrySet().stream()
-                    .filter(e -> e.getValue() == maxScore)
-                    .map(Map.Entry::getKey).collect(Collectors.toSet());
-        } else winners = new HashSet<>(players);
-        playerWinners.getKey().clear();
-        playerWinners.getKey().addAll(winners);
-        playerWinners.setValue(maxScore);
-        lastAction = Action.END_GAME;
-        newMessageBoard = newMessageBoard.withWinners(winners, maxScore);
-        return new GameState(players, newTileDecks, null, newBoard, Action.END_GAME, newMessageBoard);
+        int maxScore = maxScore(results);
+        newMessageBoard = newMessageBoard.withWinners(winners(results, maxScore), maxScore);
+        return new GameState(players, newTileDecks, null, newBoard, Action.END_GAME, newMessageBoard,
+                Action.END_GAME, null);
+    }
+
+    /**
+     * Used to find the maximum score of the players
+     * @param points The points of the players
+     * @return The maximum score, or 0 if no player has scored
+     */
+    private static int maxScore(Map<PlayerColor, Integer> points) {
+        return points.values().stream().max(Integer::compare).orElse(0);
+    }
+
+    /**
+     * Used to find the winners of the game
+     * @param points The points of the players
+     * @param maxScore The maximum score of the players
+     * @return The players with the maximum score, or all the players if no player has scored
+     */
+    private Set<PlayerColor> winners(Map<PlayerColor, Integer> points, int maxScore) {
+        if (maxScore == 0) return Set.copyOf(players);
+        return points.entrySet().stream()
+                .filter(e -> e.getValue() == maxScore)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
     }
 }
\ No newline at end of file
@@ -0,0 +1,411 @@
+package ch.epfl.chacun;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents the message board
+ * <p>
+ * The running total of the points scored by each player is kept by the list of the messages and updated as
+ * messages are appended, so it is always derived from the messages
+ * @param textMaker The text maker used to create the messages
+ * @param messages The messages on the message board
+ * @author Antoine Bastide (375407)
+ */
+public record MessageBoard(TextMaker textMaker, List<Message> messages) {
+    /**
+     * Used to construct a message board
+     * @param textMaker The text maker used to create the messages
+     * @param messages The messages on the message board
+     */
+    public MessageBoard {
+        messages = MessageList.copyOf(messages);
+    }
+
+    /**
+     * Used to get a message board with the same messages whose new messages are produced by the given text maker
+     * @param textMaker The text maker
+     * @return The message board with the given text maker, sharing the messages of this one
+     */
+    public MessageBoard withTextMaker(TextMaker textMaker) {
+        return textMaker == this.textMaker ? this : new MessageBoard(textMaker, messages);
+    }
+
+    /**
+     * Used to create a message board with a new message, updating the running total of the points
+     * @param message The message to add to the message board
+     */
+    private MessageBoard withMessage(Message message) {
+        return new MessageBoard(textMaker, ((MessageList) messages).appended(message));
+    }
+
+    /**
+     * Used to add the points of a message to the points of its scorers
+     * @param points The mutable map of the points scored by each player
+     * @param message The message
+     */
+    private static void addPoints(Map<PlayerColor, Integer> points, Message message) {
+        if (message.points() == 0) return;
+        message.scorers().forEach(s -> points.merge(s, message.points(), Integer::sum));
+    }
+
+    /**
+     * Used to find the points scored by a player in a meadow area
+     * @param animalCountMap The map that contains the number of each animal in the meadow area
+     * @return The points scored by the player in the meadow area
+     */
+    private int findMeadowPoints(Map<Animal.Kind, Integer> animalCountMap) {
+        return Points.forMeadow(animalCountMap.getOrDefault(Animal.Kind.MAMMOTH, 0),
+                                animalCountMap.getOrDefault(Animal.Kind.AUROCHS, 0),
+                                animalCountMap.getOrDefault(Animal.Kind.DEER, 0));
+    }
+
+    /**
+     * Used to get the map that contains the points scored by each player, kept up to date as messages are added
+     * @return The unmodifiable map that contains the points scored by each player, without the players with no points
+     */
+    public Map<PlayerColor, Integer> points() {
+        return ((MessageList) messages).points;
+    }
+
+    /**
+     * Used to create a message declaring that the majority occupants
+     * of a forest have received points for closing it
+     * @param forest The forest that has been closed
+     * @return The updated message board with the new message added to it
+     */
+    public MessageBoard withScoredForest(Area<Zone.Forest> forest) {
+        if (!forest.isOccupied()) return this;
+
+        // Compute the needed values to create the message
+        Set<PlayerColor> majorityOccupants = forest.majorityOccupants();
+        Set<Integer> tileIds = forest.tileIds();
+        int mushroomCount = Area.mushroomGroupCount(forest);
+        int points = Points.forClosedForest(forest.tileCount(), mushroomCount);
+
+        // Create the message and add it to the message board
+        return withMessage(new Message(textMaker, Message.Kind.SCORED_FOREST, points, majorityOccupants, tileIds,
+                mushroomCount, Map.of()));
+    }
+
+    /**
+     * Used to create a message declaring that a player has closed a forest with a menhir
+     * @param player The player that has closed the forest
+     * @param forest The forest that has been closed
+     * @return The updated message board with the new message added to it
+     */
+    public MessageBoard withClosedForestWithMenhir(PlayerColor player, Area<Zone.Forest> forest) {
+        return withMessage(new Message(textMaker, Message.Kind.CLOSED_FOREST_WITH_MENHIR, 0, Set.of(player),
+                forest.tileIds(), 0, Map.of()));
+    }
+
+    /**
+     * Used to create a message declaring that a player has closed a river
+     * @param river The river that has been closed
+     * @return The updated message board with the new message added to it
+     */
+    public MessageBoard withScoredRiver(Area<Zone.River> river) {
+        if (!river.isOccupied()) return this;
+
+        // Compute the needed values to create the message
+        Set<PlayerColor> majorityOccupants = river.majorityOccupants();
+        Set<Integer> tileIds = river.tileIds();
+        int fishCount = Area.riverFishCount(river);
+        int points = Points.forClosedRiver(river.tileCount(), fishCount);
+
+        // Create the message and add it to the message board
+        return withMessage(new Message(textMaker, Message.Kind.SCORED_RIVER, points, majorityOccupants, tileIds,
+                fishCount, Map.of()));
+    }
+
+    /**
+     * Used to create a message declaring that a player has placed a hunting trap
+     * @param scorer The player that has placed the hunting trap
+     * @param adjacentMeadow The meadow area that the hunting trap is adjacent to
+     * @return The updated message board with the new message added to it
+     */
+    public MessageBoard withScoredHuntingTrap(PlayerColor scorer, Area<Zone.Meadow> adjacentMeadow, Set<Animal> cancelledAnimals) {
+        // Find all the animals in the meadow and count them (do not count the cancelled animals)
+        Map<Animal.Kind, Integer> animalCountMap = Area.animalCounts(adjacentMeadow, cancelledAnimals);
+        int points = findMeadowPoints(animalCountMap);
+        if (points <= 0) return this;
+
+        // Create the message and add it to the message board
+        return withMessage(new Message(textMaker, Message.Kind.SCORED_HUNTING_TRAP, points, Set.of(scorer),
+                adjacentMeadow.tileIds(), 0, animalCountMap));
+    }
+
+    /**
+     * Used to create a message declaring that a player has placed a logboat
+     * @param scorer The player that has placed the logboat
+     * @param riverSystem The river system area that the logboat is in
+     * @return The updated message board with the new message added to it
+     */
+    public MessageBoard withScoredLogboat(PlayerColor scorer, Area<Zone.Water> riverSystem) {
+        // Find the number of lakes in the river system
+        int lakeCount = Area.lakeCount(riverSystem);
+        int points = Points.forLogboat(lakeCount);
+        // Create the message and add it to the message board
+        return withMessage(new Message(textMaker, Message.Kind.SCORED_LOGBOAT, points, Set.of(scorer),
+                riverSystem.tileIds(), lakeCount, Map.of()));
+    }
+
+    /**
+     * Used to create a message declaring that a player has closed a meadow
+     * @param meadow The meadow that has been closed
+     * @param cancelledAnimals The animals that are cancelled out
+     * @return The updated message board with the new message added to it
+     */
+    public MessageBoard withScoredMeadow(Area<Zone.Meadow> meadow, Set<Animal> cancelledAnimals) {
+        // Find all the animals in the meadow and count them (do not count the cancelled animals)
+        Map<Animal.Kind, Integer> animalCountMap = Area.animalCounts(meadow, cancelledAnimals);
+        int points = findMeadowPoints(animalCountMap);
+        if (!meadow.isOccupied() || points <= 0) return this;
+
+        // Create the message and add it to the message board
+        return withMessage(new Message(textMaker, Message.Kind.SCORED_MEADOW, points, meadow.majorityOccupants(),
+                meadow.tileIds(), 0, animalCountMap));
+    }
+
+    /**
+     * Used to create a message declaring that a player has closed a river system
+     * @param riverSystem The river system that has been closed
+     * @return The updated message board with the new message added to it
+     */
+    public MessageBoard withScoredRiverSystem(Area<Zone.Water> riverSystem) {
+        // Find the number of fish in the river system and count the points
+        int fishCount = Area.riverSystemFishCount(riverSystem);
+        int points = Points.forRiverSystem(fishCount);
+        if (!riverSystem.isOccupied() || points <= 0) return this;
+
+        // Create the message and add it to the message board
+        return withMessage(new Message(textMaker, Message.Kind.SCORED_RIVER_SYSTEM, points,
+                riverSystem.majorityOccupants(), riverSystem.tileIds(), fishCount, Map.of()));
+    }
+
+    /**
+     * Used to create a message declaring that a player has placed a pit trap
+     * @param adjacentMeadow The meadow area that the pit trap is adjacent to
+     * @param cancelledAnimals The animals that are cancelled out
+     * @return The updated message board with the new message added to it
+     */
+    public MessageBoard withScoredPitTrap(Area<Zone.Meadow> adjacentMeadow, Set<Animal> cancelledAnimals) {
+        // Find all the animals in the meadow and count them (do not count the cancelled animals)
+        Map<Animal.Kind, Integer> animalCountMap = Area.animalCounts(adjacentMeadow, cancelledAnimals);
+        int points = findMeadowPoints(animalCountMap);
+        if (points <= 0 || !adjacentMeadow.isOccupied()) return this;
+
+        // Create the message and add it to the message board
+        return withMessage(new Message(textMaker, Message.Kind.SCORED_PIT_TRAP, points,
+                adjacentMeadow.majorityOccupants(), adjacentMeadow.tileIds(), 0, animalCountMap));
+    }
+
+    /**
+     * Used to create a message declaring that a player has placed a raft
+     * @param riverSystem The river system area that the raft is in
+     * @return The updated message board with the new message added to it
+     */
+    public MessageBoard withScoredRaft(Area<Zone.Water> riverSystem) {
+        int lakeCount = Area.lakeCount(riverSystem);
+        int points = Points.forRaft(lakeCount);
+        if (!riverSystem.isOccupied() || points <= 0) return this;
+
+        // Create the message and add it to the message board
+        return withMessage(new Message(textMaker, Message.Kind.SCORED_RAFT, points, riverSystem.majorityOccupants(),
+                riverSystem.tileIds(), lakeCount, Map.of()));
+    }
+
+    /**
+     * Used to create a message declaring that one or more players have won
+     * @param winners The players that have won
+     * @param points The number of points the players have scored
+     * @return The updated message board with the new message added to it
+     */
+    public MessageBoard withWinners(Set<PlayerColor> winners, int points) {
+        return withMessage(new Message(textMaker, Message.Kind.WINNERS, 0, winners, Set.of(), points, Map.of()));
+    }
+
+    /**
+     * Represents the immutable list of the messages of a message board, where appending a message is amortized O(1)
+     * The message boards derived from one another share the same storage, each one seeing a prefix of it, and only
+     * the first message appended after the end of a prefix is written in place, the others copying the storage
+     * <p>
+     * Each list also holds the points scored by each player in its messages, computed from the points of the list
+     * it was appended to
+     * @author Antoine Bastide (375407)
+     */
+    private static final class MessageList extends AbstractList<Message> implements RandomAccess {
+        /** The empty list of messages */
+        private static final MessageList EMPTY = new MessageList(new Storage(new Message[0], 0), 0, Map.of());
+
+        /** The storage shared with the lists this list was derived from */
+        private final Storage storage;
+        /** The number of messages of the storage that belong to this list */
+        private final int size;
+        /** The unmodifiable points scored by each player in the messages, without the players with no points */
+        private final Map<PlayerColor, Integer> points;
+
+        /**
+         * Used to construct a list of messages
+         * @param storage The storage of the messages
+         * @param size The number of messages of the storage that belong to this list
+         * @param points The unmodifiable points scored by each player in the messages
+         */
+        private MessageList(Storage storage, int size, Map<PlayerColor, Integer> points) {
+            this.storage = storage;
+            this.size = size;
+            this.points = points;
+        }
+
+        /**
+         * Used to get an immutable list of messages with the same messages as the given list
+         * @param messages The messages
+         * @return The given list if it is already a MessageList, a copy of it otherwise
+         */
+        private static MessageList copyOf(List<Message> messages) {
+            if (messages instanceof MessageList messageList) return messageList;
+            if (messages.isEmpty()) return EMPTY;
+            Message[] elements = messages.toArray(new Message[0]);
+            Map<PlayerColor, Integer> points = new EnumMap<>(PlayerColor.class);
+            for (Message message : elements) addPoints(points, Objects.requireNonNull(message));
+            return new MessageList(new Storage(elements, elements.length), elements.length,
+                    Collections.unmodifiableMap(points));
+        }
+
+        /**
+         * Used to get the points scored by each player once the given message is appended to this list
+         * @param message The message to append
+         * @return The unmodifiable points scored by each player, shared with this list if the message scores none
+         */
+        private Map<PlayerColor, Integer> pointsWith(Message message) {
+            if (message.points() == 0 || message.scorers().isEmpty()) return points;
+            Map<PlayerColor, Integer> newPoints = new EnumMap<>(PlayerColor.class);
+            newPoints.putAll(points);
+            addPoints(newPoints, message);
+            return Collections.unmodifiableMap(newPoints);
+        }
+
+        /**
+         * Used to create a list of messages with a new message at the end, leaving this list unchanged
+         * @param message The message to append
+         * @return The list of messages with the new message at the end
+         */
+        private MessageList appended(Message message) {
+            Objects.requireNonNull(message);
+
+            // Claim the slot following this list in the shared storage if no other list has claimed it yet
+            Message[] elements = storage.elements;
+            if (size < elements.length && storage.claimedSize.compareAndSet(size, size + 1)) {
+                elements[size] = message;
+                return new MessageList(storage, size + 1, pointsWith(message));
+            }
+
+            // Otherwise copy this list into a new storage with some room to grow
+            Message[] copy = Arrays.copyOf(elements, Math.max(2 * size, 8));
+            Arrays.fill(copy, size, copy.length, null);
+            copy[size] = message;
+            return new MessageList(new Storage(copy, size + 1), size + 1, pointsWith(message));
+        }
+
+        @Override
+        public Message get(int index) {
+            Objects.checkIndex(index, size);
+            return storage.elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Represents the storage shared by the lists of messages derived from one another
+         * @param elements The messages, of which only the first claimedSize ones are set
+         * @param claimedSize The number of messages that have been claimed by a list
+         * @author Antoine Bastide (375407)
+         */
+        private record Storage(Message[] elements, AtomicInteger claimedSize) {
+            /**
+             * Used to construct a storage
+             * @param elements The messages
+             * @param claimedSize The number of messages that have already been claimed
+             */
+            private Storage(Message[] elements, int claimedSize) {
+                this(elements, new AtomicInteger(claimedSize));
+            }
+        }
+    }
+
+    /**
+     * Represents a message on the message board, whose text is only produced by the text maker when it is read
+     * @param textMaker The text maker used to produce the text of the message
+     * @param kind The kind of the message
+     * @param points The number of points the scorers have scored
+     * @param scorers The players concerned by the message, who have scored the points if there are any
+     * @param tileIds The ids of the tiles that make up the area
+     * @param count The number of mushroom groups, fish or lakes mentioned by the message, or the points of the winners
+     * @param animals The number of animals of each kind mentioned by the message
+     * @author Antoine Bastide (375407)
+     */
+    public record Message(TextMaker textMaker, Kind kind, int points, Set<PlayerColor> scorers, Set<Integer> tileIds,
+                          int count, Map<Animal.Kind, Integer> animals) {
+        /**
+         * Used to construct a message on the message board
+         * @param textMaker The text maker used to produce the text of the message
+         * @param kind The kind of the message
+         * @param points The number of points the players have scored
+         * @param scorers The players concerned by the message
+         * @param tileIds The id of the tiles that are concerned by the message
+         * @param count The number of mushroom groups, fish or lakes, or the points of the winners
+         * @param animals The number of animals of each kind
+         */
+        public Message {
+            // Make sure the arguments are valid
+            Objects.requireNonNull(textMaker);
+            Objects.requireNonNull(kind);
+            Preconditions.checkArgument(points >= 0 && count >= 0);
+
+            // Make sure the collections are immutable
+            scorers = Set.copyOf(scorers);
+            tileIds = Set.copyOf(tileIds);
+            animals = Map.copyOf(animals);
+        }
+
+        /**
+         * Used to get the text of the message, produced by the text maker of the message
+         * @return The text of the message
+         */
+        public String text() {
+            return switch (kind) {
+                case SCORED_FOREST -> textMaker.playersScoredForest(scorers, points, count, tileIds.size());
+                case CLOSED_FOREST_WITH_MENHIR -> textMaker.playerClosedForestWithMenhir(scorers.iterator().next());
+                case SCORED_RIVER -> textMaker.playersScoredRiver(scorers, points, count, tileIds.size());
+                case SCORED_HUNTING_TRAP ->
+                        textMaker.playerScoredHuntingTrap(scorers.iterator().next(), points, animals);
+                case SCORED_LOGBOAT -> textMaker.playerScoredLogboat(scorers.iterator().next(), points, count);
+                case SCORED_MEADOW -> textMaker.playersScoredMeadow(scorers, points, animals);
+                case SCORED_RIVER_SYSTEM -> textMaker.playersScoredRiverSystem(scorers, points, count);
+                case SCORED_PIT_TRAP -> textMaker.playersScoredPitTrap(scorers, points, animals);
+                case SCORED_RAFT -> textMaker.playersScoredRaft(scorers, points, count);
+                case WINNERS -> textMaker.playersWon(scorers, count);
+            };
+        }
+
+        /**
+         * Represents the different kinds of messages
+         * @author Antoine Bastide (375407)
+         */
+        public enum Kind {
+            SCORED_FOREST,
+            CLOSED_FOREST_WITH_MENHIR,
+            SCORED_RIVER,
+            SCORED_HUNTING_TRAP,
+            SCORED_LOGBOAT,
+            SCORED_MEADOW,
+            SCORED_RIVER_SYSTEM,
+            SCORED_PIT_TRAP,
+            SCORED_RAFT,
+            WINNERS
+        }
+    }
+}
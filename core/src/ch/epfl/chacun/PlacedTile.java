@@ -1,9 +1,7 @@
 package ch.epfl.chacun;
 
-import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Represents a tile placed on the board
@@ -66,15 +64,24 @@ public record PlacedTile(Tile tile, PlayerColor placer, Rotation rotation, Pos p
         };
     }
 
+    /**
+     * Used to get the packed encoding of the kinds of the sides of the placed tile
+     * @see Tile#sideKinds(Rotation)
+     * @return The packed encoding of the kinds of the sides of the placed tile
+     */
+    public int sideKinds() {
+        return tile.sideKinds(rotation);
+    }
+
     /**
      * Used to get the zone of the placed tile with the given id
      * @return The zone of the placed tile with the given id
      * @throws IllegalArgumentException If the tile does not have a zone with the given id
      */
     public Zone zoneWithId(int id) {
-        return tile.zones().stream().filter(zone -> zone.id() == id)
-                .findFirst()
-                .orElseThrow(IllegalArgumentException::new);
+        Zone zone = Zone.tileId(id) == tile.id() ? Tiles.catalogEntry(tile).zoneWithLocalId(Zone.localId(id)) : null;
+        Preconditions.checkArgument(Objects.nonNull(zone));
+        return zone;
     }
 
     /**
@@ -82,58 +89,39 @@ public record PlacedTile(Tile tile, PlayerColor placer, Rotation rotation, Pos p
      * @return The zones of the placed tile with special powers
      */
     public Zone specialPowerZone() {
-        return tile.zones().stream().filter(zone -> Objects.nonNull(zone.specialPower()))
-                .findFirst()
-                .orElse(null);
+        return Tiles.catalogEntry(tile).specialPowerZone();
     }
 
     /**
      * Used to get the zones of the placed tile that are forests
-     * @return The zones of the placed tile that are forests
+     * @return The unmodifiable set of the zones of the placed tile that are forests
      */
     public Set<Zone.Forest> forestZones() {
-        return tile.zones().stream().filter(zone -> zone instanceof Zone.Forest)
-                .map(zone -> (Zone.Forest) zone)
-                .collect(Collectors.toSet());
+        return Tiles.catalogEntry(tile).forestZones();
     }
 
     /**
      * Used to get the zones of the placed tile that are meadows
-     * @return The zones of the placed tile that are meadows
+     * @return The unmodifiable set of the zones of the placed tile that are meadows
      */
     public Set<Zone.Meadow> meadowZones() {
-        return tile.zones().stream().filter(zone -> zone instanceof Zone.Meadow)
-                .map(zone -> (Zone.Meadow) zone)
-                .collect(Collectors.toSet());
+        return Tiles.catalogEntry(tile).meadowZones();
     }
 
     /**
      * Used to get the zones of the placed tile that are rivers
-     * @return The zones of the placed tile that are rivers
+     * @return The unmodifiable set of the zones of the placed tile that are rivers
      */
     public Set<Zone.River> riverZones() {
-        return tile.zones().stream().filter(zone -> zone instanceof Zone.River)
-                .map(zone -> (Zone.River) zone)
-                .collect(Collectors.toSet());
+        return Tiles.catalogEntry(tile).riverZones();
     }
 
     /**
      * Used to get the potential occupants of the placed tile
-     * @return The potential occupants of the placed tile
+     * @return The unmodifiable set of the potential occupants of the placed tile
      */
     public Set<Occupant> potentialOccupants() {
-        if (Objects.isNull(placer)) return Set.of();
-
-        Set<Occupant> potentialOccupants = new HashSet<>();
-        for (Zone zone : tile.zones()) {
-            // Check if the side zones contain the zone
-            if (tile.sideZones().contains(zone)) potentialOccupants.add(new Occupant(Occupant.Kind.PAWN, zone.id()));
-
-            // Check the special requirements for the water zones
-            if (zone instanceof Zone.River river && !river.hasLake() || zone instanceof Zone.Lake)
-                potentialOccupants.add(new Occupant(Occupant.Kind.HUT, zone.id()));
-        }
-        return potentialOccupants;
+        return Objects.isNull(placer) ? Set.of() : Tiles.catalogEntry(tile).potentialOccupants();
     }
 
     /**
@@ -0,0 +1,107 @@
+package ch.epfl.chacun;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Represents a text maker that produces no text, used when the game is played without displaying the messages
+ * (e.g. by the bot or in a headless simulation)
+ * @author Antoine Bastide (375407)
+ */
+public enum TextMakerEmpty implements TextMaker {
+    INSTANCE;
+
+    /** The text produced by this text maker */
+    private static final String EMPTY = "";
+
+    // ----------------------- Overridden Methods ----------------------- //
+    @Override
+    public String playerName(PlayerColor playerColor) {
+        return playerColor.name();
+    }
+
+    @Override
+    public String points(int points) {
+        return String.valueOf(points);
+    }
+
+    @Override
+    public String playerClosedForestWithMenhir(PlayerColor player) {
+        return EMPTY;
+    }
+
+    @Override
+    public String playersScoredForest(Set<PlayerColor> scorers, int points, int mushroomGroupCount, int tileCount) {
+        return EMPTY;
+    }
+
+    @Override
+    public String playersScoredRiver(Set<PlayerColor> scorers, int points, int fishCount, int tileCount) {
+        return EMPTY;
+    }
+
+    @Override
+    public String playerScoredHuntingTrap(PlayerColor scorer, int points, Map<Animal.Kind, Integer> animals) {
+        return EMPTY;
+    }
+
+    @Override
+    public String playerScoredLogboat(PlayerColor scorer, int points, int lakeCount) {
+        return EMPTY;
+    }
+
+    @Override
+    public String playersScoredMeadow(Set<PlayerColor> scorers, int points, Map<Animal.Kind, Integer> animals) {
+        return EMPTY;
+    }
+
+    @Override
+    public String playersScoredRiverSystem(Set<PlayerColor> scorers, int points, int fishCount) {
+        return EMPTY;
+    }
+
+    @Override
+    public String playersScoredPitTrap(Set<PlayerColor> scorers, int points, Map<Animal.Kind, Integer> animals) {
+        return EMPTY;
+    }
+
+    @Override
+    public String playersScoredRaft(Set<PlayerColor> scorers, int points, int lakeCount) {
+        return EMPTY;
+    }
+
+    @Override
+    public String playersWon(Set<PlayerColor> winners, int points) {
+        return EMPTY;
+    }
+
+    @Override
+    public String clickToOccupy() {
+        return EMPTY;
+    }
+
+    @Override
+    public String clickToUnoccupy() {
+        return EMPTY;
+    }
+
+    @Override
+    public String waitForPlayer(String playerName) {
+        return EMPTY;
+    }
+
+    @Override
+    public String withPlacedTile(String playerName, PlacedTile placedTile) {
+        return EMPTY;
+    }
+
+    @Override
+    public String withOccupant(String playerName, Occupant occupant) {
+        return EMPTY;
+    }
+
+    @Override
+    public String withRetakePawn(String playerName, Occupant occupant) {
+        return EMPTY;
+    }
+}
@@ -0,0 +1,60 @@
+package ch.epfl.chacun;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Represents a tile
+ * @param id The id of the tile
+ * @param kind The kind of the tile
+ * @param n The north side of the tile
+ * @param e The east side of the tile
+ * @param s The south side of the tile
+ * @param w The west side of the tile
+ * @author Adam BEKKAR (379476)
+ */
+public record Tile(int id, Kind kind, TileSide n, TileSide e, TileSide s, TileSide w) {
+    /** The enum of the different types of tiles that can be placed during the game */
+    public enum Kind { START, NORMAL, MENHIR }
+
+    /** The number of bits used to encode the kind of one side in {@link #sideKinds(Rotation)} */
+    public static final int SIDE_KIND_BITS = 2;
+    /** The mask of the bits encoding the kind of one side in {@link #sideKinds(Rotation)} */
+    public static final int SIDE_KIND_MASK = (1 << SIDE_KIND_BITS) - 1;
+
+    /**
+     * Used to get the sides of the tile in an unmodifiable list in the order n, e, s, w
+     * @return The sides of the tile in the order n, e, s, w
+     */
+    public List<TileSide> sides() {
+        return Tiles.catalogEntry(this).sides();
+    }
+
+    /**
+     * Used to get the zones of this tile touching its sides
+     * @return The unmodifiable set of the zones of this tile touching its sides
+     */
+    public Set<Zone> sideZones() {
+        return Tiles.catalogEntry(this).sideZones();
+    }
+
+    /**
+     * Used to get the zones of the tile, lakes included
+     * @return The unmodifiable set of the zones of the tile, lakes included
+     */
+    public Set<Zone> zones() {
+        return Tiles.catalogEntry(this).zones();
+    }
+
+    /**
+     * Used to get the packed encoding of the kinds of the sides of the tile once rotated by the given rotation.
+     * The kind of the side facing the direction d is stored in the SIDE_KIND_BITS bits starting at the bit
+     * SIDE_KIND_BITS * d.ordinal(), as a non-zero value that is the same for two sides if and only if they are
+     * of the same kind
+     * @param rotation The rotation of the tile
+     * @return The packed encoding of the kinds of the sides of the rotated tile
+     */
+    public int sideKinds(Rotation rotation) {
+        return Tiles.catalogEntry(this).sideKinds()[rotation.ordinal()];
+    }
+}
\ No newline at end of file
@@ -1,8 +1,6 @@
 package ch.epfl.chacun;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 /**
  * Represents the tiles of the game
@@ -14,6 +12,21 @@ public final class Tiles {
 
     /** The list of all the tiles */
     public static final List<Tile> TILES = createTiles();
+    /** The zone data derived from each tile of TILES, indexed by tile id */
+    private static final List<CatalogEntry> CATALOG = TILES.stream().map(CatalogEntry::of).toList();
+
+    /**
+     * Used to get the zone data derived from the given tile, which is only computed once for the tiles of TILES
+     * @param tile The tile to get the derived zone data of
+     * @return The zone data derived from the given tile
+     */
+    static CatalogEntry catalogEntry(Tile tile) {
+        int id = tile.id();
+        // The tiles that are not part of TILES, or all of them while the catalog is being built, are derived on the fly
+        if (Objects.isNull(CATALOG) || id < 0 || id >= CATALOG.size() || TILES.get(id) != tile)
+            return CatalogEntry.of(tile);
+        return CATALOG.get(id);
+    }
 
     /**
      * Creates a list of the tiles that is a subset of the full list of tiles but containing the start tiles
@@ -1277,4 +1290,126 @@ public final class Tiles {
         tiles.trimToSize();
         return Collections.unmodifiableList(tiles);
     }
+
+    /**
+     * Represents the zone data derived from a tile
+     * @param sides The sides of the tile in the order n, e, s, w
+     * @param sideZones The zones of the tile touching its sides
+     * @param zones The zones of the tile, lakes included
+     * @param forestZones The zones of the tile that are forests
+     * @param meadowZones The zones of the tile that are meadows
+     * @param riverZones The zones of the tile that are rivers
+     * @param lakeRivers The zones of the tile that are rivers connected to a lake
+     * @param specialPowerZone The zone of the tile with a special power, or null if there is none
+     * @param potentialOccupants The potential occupants of the tile once it is placed by a player
+     * @param zonesByLocalId The zones of the tile indexed by local id, null for the unused local ids
+     * @param openConnections The number of open connections of the zones of the tile indexed by local id
+     * @param sideKinds The packed encoding of the kinds of the sides of the tile indexed by rotation ordinal
+     * @author Antoine Bastide (375407)
+     */
+    record CatalogEntry(List<TileSide> sides, Set<Zone> sideZones, Set<Zone> zones, Set<Zone.Forest> forestZones,
+                        Set<Zone.Meadow> meadowZones, Set<Zone.River> riverZones, List<Zone.River> lakeRivers,
+                        Zone specialPowerZone, Set<Occupant> potentialOccupants, Zone[] zonesByLocalId,
+                        int[] openConnections, int[] sideKinds) {
+        /** The number of local ids a zone can have */
+        private static final int LOCAL_ID_COUNT = 10;
+        /** The number of bits of the packed side kinds */
+        private static final int SIDE_KINDS_BITS = Tile.SIDE_KIND_BITS * Direction.COUNT;
+        /** The mask of the bits of the packed side kinds */
+        private static final int SIDE_KINDS_MASK = (1 << SIDE_KINDS_BITS) - 1;
+
+        /**
+         * Used to derive the zone data of a tile
+         * @param tile The tile to derive the zone data of
+         * @return The zone data derived from the tile
+         */
+        static CatalogEntry of(Tile tile) {
+            List<TileSide> sides = List.of(tile.n(), tile.e(), tile.s(), tile.w());
+            Set<Zone> sideZones = new HashSet<>();
+            Set<Zone> zones = new HashSet<>();
+            Set<Zone.Forest> forestZones = new HashSet<>();
+            Set<Zone.Meadow> meadowZones = new HashSet<>();
+            Set<Zone.River> riverZones = new HashSet<>();
+            Set<Zone.River> lakeRivers = new HashSet<>();
+            Set<Occupant> potentialOccupants = new HashSet<>();
+            Zone[] zonesByLocalId = new Zone[LOCAL_ID_COUNT];
+            int[] openConnections = new int[LOCAL_ID_COUNT];
+
+            // Count the number of open connections of each zone, the rivers connected
+            // to a lake having an additional one, as does the lake they are connected to
+            for (TileSide side : sides)
+                for (Zone zone : side.zones()) {
+                    sideZones.add(zone);
+                    openConnections[zone.localId()]++;
+                    if (zone instanceof Zone.River river && river.hasLake()) {
+                        lakeRivers.add(river);
+                        openConnections[river.lake().localId()]++;
+                        openConnections[river.localId()]++;
+                    }
+                }
+
+            // Add the lakes to the side zones to get all the zones
+            zones.addAll(sideZones);
+            for (Zone.River river : lakeRivers) zones.add(river.lake());
+
+            Zone specialPowerZone = null;
+            for (Zone zone : zones) {
+                zonesByLocalId[zone.localId()] = zone;
+                if (Objects.nonNull(zone.specialPower())) specialPowerZone = zone;
+
+                // Sort the zones by kind
+                switch (zone) {
+                    case Zone.Forest forest -> forestZones.add(forest);
+                    case Zone.Meadow meadow -> meadowZones.add(meadow);
+                    case Zone.River river -> riverZones.add(river);
+                    case Zone.Lake _ -> {}
+                }
+
+                // Pawns can be placed on the side zones, huts on the lakes and the rivers without a lake
+                if (sideZones.contains(zone)) potentialOccupants.add(new Occupant(Occupant.Kind.PAWN, zone.id()));
+                if (zone instanceof Zone.River river && !river.hasLake() || zone instanceof Zone.Lake)
+                    potentialOccupants.add(new Occupant(Occupant.Kind.HUT, zone.id()));
+            }
+
+            // Encode the kind of each side, the side facing the direction d being stored at the bits of index d
+            int kinds = 0;
+            for (Direction d : Direction.ALL) {
+                int kind = switch (sides.get(d.ordinal())) {
+                    case TileSide.Forest _ -> 1;
+                    case TileSide.Meadow _ -> 2;
+                    case TileSide.River _ -> 3;
+                };
+                kinds |= kind << Tile.SIDE_KIND_BITS * d.ordinal();
+            }
+
+            // Rotating the tile clockwise by a quarter turn moves each side to the index of the next direction
+            int[] sideKinds = new int[Rotation.COUNT];
+            for (Rotation r : Rotation.ALL) {
+                int shift = Tile.SIDE_KIND_BITS * r.quarterTurnsCW();
+                sideKinds[r.ordinal()] = (kinds << shift | kinds >>> SIDE_KINDS_BITS - shift) & SIDE_KINDS_MASK;
+            }
+
+            return new CatalogEntry(sides, Set.copyOf(sideZones), Set.copyOf(zones), Set.copyOf(forestZones),
+                    Set.copyOf(meadowZones), Set.copyOf(riverZones), List.copyOf(lakeRivers), specialPowerZone,
+                    Set.copyOf(potentialOccupants), zonesByLocalId, openConnections, sideKinds);
+        }
+
+        /**
+         * Used to get the zone of the tile with the given local id
+         * @param localId The local id of the zone
+         * @return The zone of the tile with the given local id, or null if there is none
+         */
+        Zone zoneWithLocalId(int localId) {
+            return 0 <= localId && localId < LOCAL_ID_COUNT ? zonesByLocalId[localId] : null;
+        }
+
+        /**
+         * Used to get the number of open connections of the zone of the tile with the given local id
+         * @param localId The local id of the zone
+         * @return The number of open connections of the zone
+         */
+        int openConnections(int localId) {
+            return openConnections[localId];
+        }
+    }
 }
@@ -0,0 +1,117 @@
+package ch.epfl.chacun;
+
+import java.util.Objects;
+
+/**
+ * Used to compute the Zobrist keys of the elements of a state of the game, the hash of a state being the exclusive
+ * or of the keys of its elements, so that it can be updated incrementally when an element is added or removed
+ * <p>
+ * The keys are derived from the elements by a fixed mixing function rather than drawn in tables, so that they are
+ * the same for every board size and every run of the game
+ * @author Adam Bekkar (379476)
+ */
+public final class Zobrist {
+    /** The salts of the kinds of keys, so that two elements of different kinds do not share their key */
+    private static final long TILE_SALT = 0x243F6A8885A308D3L, OCCUPANT_SALT = 0x13198A2E03707344L,
+            ANIMAL_SALT = 0xA4093822299F31D0L, STATE_SALT = 0x082EFA98EC4E6C89L,
+            POINTS_SALT = 0x452821E638D01377L, DECK_SALT = 0xBE5466CF34E90C6CL;
+    /** The number of bits used to encode a coordinate of a position or the size of a deck */
+    private static final int FIELD_BITS = 12;
+    /** The mask of a field of FIELD_BITS bits */
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+
+    /** Private constructor to prevent instantiation */
+    private Zobrist() {}
+
+    /**
+     * Used to get the key of the given tile placed at its position with its rotation, regardless of its occupant
+     * @param placedTile The placed tile
+     * @return The key of the tile, its rotation and its position
+     */
+    public static long tileKey(PlacedTile placedTile) {
+        Pos pos = placedTile.pos();
+        long value = (long) placedTile.id() << 32 | (long) placedTile.rotation().ordinal() << 2 * FIELD_BITS
+                | (long) (pos.x() & FIELD_MASK) << FIELD_BITS | pos.y() & FIELD_MASK;
+        return mix(TILE_SALT, value);
+    }
+
+    /**
+     * Used to get the key of the given occupant, its placer being the placer of the tile of its zone
+     * @param occupant The occupant
+     * @return The key of the occupant
+     */
+    public static long occupantKey(Occupant occupant) {
+        return occupantKey(occupant.kind(), occupant.zoneId());
+    }
+
+    /**
+     * Used to get the key of the occupant of the given kind in the zone with the given id
+     * @param kind The kind of the occupant
+     * @param zoneId The id of the zone of the occupant
+     * @return The key of the occupant
+     */
+    public static long occupantKey(Occupant.Kind kind, int zoneId) {
+        return mix(OCCUPANT_SALT, (long) zoneId << 1 | kind.ordinal());
+    }
+
+    /**
+     * Used to get the key of the cancelled animal with the given id
+     * @param animalId The id of the animal
+     * @return The key of the animal being cancelled
+     */
+    public static long cancelledAnimalKey(int animalId) {
+        return mix(ANIMAL_SALT, animalId);
+    }
+
+    /**
+     * Used to get the key of the given player having the given points, which are not part of the hash of a state
+     * but can be combined with it by the users that need to distinguish states with different scores
+     * @param player The player
+     * @param points The points of the player
+     * @return The key of the points of the player
+     */
+    public static long pointsKey(PlayerColor player, int points) {
+        return mix(POINTS_SALT, (long) points << 3 | player.ordinal());
+    }
+
+    /**
+     * Used to get the key of the tile with the given id being in a deck, which is not part of the hash of a state
+     * but can be combined with it by the users that need to distinguish states with different tiles left
+     * @param tileId The id of the tile
+     * @return The key of the tile being in a deck
+     */
+    public static long deckTileKey(int tileId) {
+        return mix(DECK_SALT, tileId);
+    }
+
+    /**
+     * Used to get the key of the part of a state of the game that is not on the board
+     * @param normalDeckSize The number of normal tiles left
+     * @param menhirDeckSize The number of menhir tiles left
+     * @param tileToPlace The tile to place, or null
+     * @param currentPlayer The player whose turn it is, the order of the players being fixed
+     * @param nextAction The next action to be taken
+     * @return The key of the decks cursor, the tile to place, the current player and the next action
+     */
+    public static long stateKey(int normalDeckSize, int menhirDeckSize, Tile tileToPlace,
+                                PlayerColor currentPlayer, GameState.Action nextAction) {
+        int tileId = Objects.isNull(tileToPlace) ? FIELD_MASK : tileToPlace.id();
+        long value = (long) (normalDeckSize & FIELD_MASK) << 3 * FIELD_BITS
+                | (long) (menhirDeckSize & FIELD_MASK) << 2 * FIELD_BITS | (long) (tileId & FIELD_MASK) << FIELD_BITS
+                | (long) currentPlayer.ordinal() << 3 | nextAction.ordinal();
+        return mix(STATE_SALT, value);
+    }
+
+    /**
+     * Used to mix the given value with the given salt into a key, using the finalizer of SplitMix64
+     * @param salt The salt of the kind of key
+     * @param value The value encoding the element
+     * @return The key of the element
+     */
+    private static long mix(long salt, long value) {
+        long z = salt + value * 0x9E3779B97F4A7C15L;
+        z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+        return z ^ z >>> 31;
+    }
+}
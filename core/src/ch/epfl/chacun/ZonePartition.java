@@ -0,0 +1,310 @@
+package ch.epfl.chacun;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Represents a zone partition, stored as a disjoint-set forest keyed by zone id
+ * @param <Z> The generic type used to allow the zone builder to contain different types of zones
+ * @author Antoine Bastide (375407)
+ */
+public final class ZonePartition<Z extends Zone> {
+    /** The value used in the roots array for the zones that are not in the partition */
+    private static final int NO_ZONE = -1;
+
+    /** The id of the root zone of the area containing each zone (indexed by zone id), or NO_ZONE */
+    private final int[] roots;
+    /** The rank of each root zone, an upper bound of the height of its tree in the builder */
+    private final int[] ranks;
+    /** The area represented by each root zone (indexed by zone id), or null if the zone is not a root */
+    private final Area<Z>[] areasByRoot;
+    /** The set of the areas of the partition, derived on demand from the roots */
+    private Set<Area<Z>> areas;
+
+    /**
+     * Used to construct a ZonePartition
+     * @param areas The areas that make up this zone partition
+     */
+    public ZonePartition(Set<Area<Z>> areas) {
+        int capacity = areas.stream()
+                .flatMap(area -> area.zones().stream())
+                .mapToInt(zone -> zone.id() + 1)
+                .max()
+                .orElse(0);
+
+        this.roots = emptyRoots(capacity);
+        this.ranks = new int[capacity];
+        this.areasByRoot = newAreaArray(capacity);
+
+        // The first zone of each area is the root of all the zones of that area
+        for (Area<Z> area : areas) {
+            if (area.zones().isEmpty()) continue;
+            int root = area.zones().iterator().next().id();
+            for (Z zone : area.zones()) roots[zone.id()] = root;
+            ranks[root] = area.zones().size() > 1 ? 1 : 0;
+            areasByRoot[root] = area;
+        }
+    }
+
+    /** Used to construct a ZonePartition with no areas */
+    public ZonePartition() {
+        this(Set.of());
+    }
+
+    /**
+     * Used to construct a ZonePartition from its disjoint-set representation
+     * @param roots The id of the root zone of each zone, every zone pointing directly to its root
+     * @param ranks The rank of each root zone
+     * @param areasByRoot The area represented by each root zone
+     */
+    private ZonePartition(int[] roots, int[] ranks, Area<Z>[] areasByRoot) {
+        this.roots = roots;
+        this.ranks = ranks;
+        this.areasByRoot = areasByRoot;
+    }
+
+    /**
+     * Used to get the areas that make up this ZonePartition
+     * @return The areas that make up this ZonePartition
+     */
+    public Set<Area<Z>> areas() {
+        Set<Area<Z>> areas = this.areas;
+        if (areas == null) {
+            Set<Area<Z>> rootAreas = new HashSet<>();
+            for (Area<Z> area : areasByRoot)
+                if (area != null) rootAreas.add(area);
+            this.areas = areas = Set.copyOf(rootAreas);
+        }
+        return areas;
+    }
+
+    /**
+     * Used to get the area containing a zone
+     * @param zone The zone to find the area for
+     * @return The area containing the zone
+     * @throws IllegalArgumentException If the zone is not in any area of the partition
+     */
+    public Area<Z> areaContaining(Z zone) {
+        int id = zone.id();
+        Preconditions.checkArgument(0 <= id && id < roots.length && roots[id] != NO_ZONE);
+        return areasByRoot[roots[id]];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        return o instanceof ZonePartition<?> that && areas().equals(that.areas());
+    }
+
+    @Override
+    public int hashCode() {
+        return areas().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return STR."ZonePartition[areas=\{areas()}]";
+    }
+
+    /**
+     * Used to create a roots array where no zone is in the partition
+     * @param capacity The length of the array
+     * @return The roots array filled with NO_ZONE
+     */
+    private static int[] emptyRoots(int capacity) {
+        int[] roots = new int[capacity];
+        Arrays.fill(roots, NO_ZONE);
+        return roots;
+    }
+
+    /**
+     * Used to create an array of areas, since generic arrays cannot be created directly
+     * @param capacity The length of the array
+     * @return The array of areas
+     * @param <Z> The type of the zones of the areas
+     */
+    @SuppressWarnings("unchecked")
+    private static <Z extends Zone> Area<Z>[] newAreaArray(int capacity) {
+        return (Area<Z>[]) new Area<?>[capacity];
+    }
+
+    /**
+     * A builder class used to dynamically create a ZoneBuilder object
+     * The arrays of the base partition are only copied once the builder is modified
+     * @param <Z> The generic type used to allow the builder to contain different types of zones
+     * @author Antoine Bastide (375407)
+     */
+    public final static class Builder<Z extends Zone> {
+        /** The partition this builder is based on, returned as is if the builder is never modified */
+        private final ZonePartition<Z> partition;
+        /** The parent of each zone in the disjoint-set forest (indexed by zone id), or NO_ZONE */
+        private int[] parents;
+        /** The rank of each root zone */
+        private int[] ranks;
+        /** The area represented by each root zone */
+        private Area<Z>[] areasByRoot;
+
+        /**
+         * Used to construct the builder of a ZonePartition
+         * @param partition The ZonePartition we are basing this Builder on
+         */
+        public Builder(ZonePartition<Z> partition) {
+            this.partition = partition;
+            this.parents = partition.roots;
+            this.ranks = partition.ranks;
+            this.areasByRoot = partition.areasByRoot;
+        }
+
+        /** Used to copy the arrays of the base partition before modifying them for the first time */
+        private void ensureCopied() {
+            if (parents != partition.roots) return;
+            parents = parents.clone();
+            ranks = ranks.clone();
+            areasByRoot = areasByRoot.clone();
+        }
+
+        /**
+         * Used to make sure the arrays can contain the zone with the given id
+         * @param id The id of the zone
+         */
+        private void ensureCapacity(int id) {
+            ensureCopied();
+            if (id < parents.length) return;
+
+            int capacity = Math.max(id + 1, 2 * parents.length);
+            int oldCapacity = parents.length;
+            parents = Arrays.copyOf(parents, capacity);
+            Arrays.fill(parents, oldCapacity, capacity, NO_ZONE);
+            ranks = Arrays.copyOf(ranks, capacity);
+            areasByRoot = Arrays.copyOf(areasByRoot, capacity);
+        }
+
+        /**
+         * Used to find the root of the zone with the given id, compressing the path on the way
+         * @param id The id of the zone
+         * @return The id of the root zone of the area containing the zone
+         * @throws IllegalArgumentException If the zone is not in this Builder
+         */
+        private int find(int id) {
+            Preconditions.checkArgument(0 <= id && id < parents.length && parents[id] != NO_ZONE);
+
+            int root = id;
+            while (parents[root] != root) root = parents[root];
+
+            // Make every zone of the path point directly to the root
+            if (parents[id] != root) {
+                ensureCopied();
+                while (parents[id] != root) {
+                    int next = parents[id];
+                    parents[id] = root;
+                    id = next;
+                }
+            }
+            return root;
+        }
+
+        /**
+         * Used to replace the area represented by the given root
+         * @param root The id of the root zone
+         * @param area The new area
+         */
+        private void setArea(int root, Area<Z> area) {
+            ensureCopied();
+            areasByRoot[root] = area;
+        }
+
+        /**
+         * Used to add a given zone to this Builder
+         * @param zone The zone to add to this Builder
+         * @param openConnections The amount of open connections the given zone has
+         */
+        public void addSingleton(Z zone, int openConnections) {
+            int id = zone.id();
+            ensureCapacity(id);
+            parents[id] = id;
+            ranks[id] = 0;
+            areasByRoot[id] = new Area<>(Set.of(zone), List.of(), openConnections);
+        }
+
+        /**
+         * Used to add a given initial occupant to a given zone of this Builder
+         * @param zone The zone we want to populate with the given occupant
+         * @throws IllegalArgumentException If the given zone is not in any area of the partition, or if the given zone is already occupied
+         * @param color The color of the occupant we want to add to the given zone
+         */
+        public void addInitialOccupant(Z zone, PlayerColor color) {
+            int root = find(zone.id());
+            setArea(root, areasByRoot[root].withInitialOccupant(color));
+        }
+
+        /**
+         * Used to remove a given occupant from a given zone in this Builder
+         * @param zone The zone we want to remove an occupant from
+         * @throws IllegalArgumentException If the given zone is not in this Builder, or if the given occupant does not occupy the given zone
+         * @param color The occupant to remove
+         */
+        public void removeOccupant(Z zone, PlayerColor color) {
+            int root = find(zone.id());
+            setArea(root, areasByRoot[root].withoutOccupant(color));
+        }
+
+        /**
+         * Used to remove all the occupants from a given area of this Builder
+         * @throws IllegalArgumentException If the given area is not a part of this Builder
+         * @param area The area we want to rid occupants of
+         */
+        public void removeAllOccupantsOf(Area<Z> area) {
+            Preconditions.checkArgument(!area.zones().isEmpty());
+            int root = find(area.zones().iterator().next().id());
+            Preconditions.checkArgument(areasByRoot[root].equals(area));
+            setArea(root, area.withoutOccupants());
+        }
+
+        /**
+         * Used to connect two given zones in this Builder
+         * @param zone1 The first zone to connect
+         * @param zone2 The second zone to connect
+         * @throws IllegalArgumentException If the given zones do not exist in this Builder
+         */
+        public void union(Z zone1, Z zone2) {
+            // Find the roots of the areas containing the given zones, or throw an exception if they don't exist
+            int root1 = find(zone1.id());
+            int root2 = find(zone2.id());
+            Area<Z> connected = areasByRoot[root1].connectTo(areasByRoot[root2]);
+
+            if (root1 == root2) {
+                setArea(root1, connected);
+                return;
+            }
+
+            // Attach the tree of lower rank under the root of the other one
+            ensureCopied();
+            if (ranks[root1] < ranks[root2]) {
+                int root = root1;
+                root1 = root2;
+                root2 = root;
+            }
+            parents[root2] = root1;
+            areasByRoot[root2] = null;
+            areasByRoot[root1] = connected;
+            if (ranks[root1] == ranks[root2]) ranks[root1]++;
+        }
+
+        /**
+         * Used to build a ZoneBuilder
+         * @return the ZoneBuilder built from this Builder
+         */
+        public ZonePartition<Z> build() {
+            if (parents == partition.roots && areasByRoot == partition.areasByRoot) return partition;
+
+            // Make every zone point directly to its root so that the partition never needs to compress paths
+            int[] roots = new int[parents.length];
+            for (int id = 0; id < parents.length; id++)
+                roots[id] = parents[id] == NO_ZONE ? NO_ZONE : find(id);
+
+            return new ZonePartition<>(roots, ranks.clone(), areasByRoot.clone());
+        }
+    }
+}
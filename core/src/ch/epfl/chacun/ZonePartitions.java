@@ -18,8 +18,6 @@ public record ZonePartitions(ZonePartition<Zone.Forest> forests, ZonePartition<Z
 
     /** Represents the builder of the ZonePartitions */
     public final static class Builder {
-        /** The maximum number of zones */
-        private static final int MAX_ZONES = 10;
         /** The builder for the forest partition */
         private final ZonePartition.Builder<Zone.Forest> forests;
         /** The builder for the meadow partition */
@@ -43,35 +41,26 @@ public record ZonePartitions(ZonePartition<Zone.Forest> forests, ZonePartition<Z
          * @param tile The tile to add to the partitions
          */
         public void addTile(Tile tile) {
-            int[] openConnexions = new int[MAX_ZONES];
-
-            // Count the number of open connexions for each zone of id i
-            // and add it to the position i of the openConnexions array
-            for (TileSide side : tile.sides())
-                for (Zone zone : side.zones()) {
-                    openConnexions[zone.localId()]++;
-                    if (zone instanceof Zone.River river && river.hasLake()) {
-                        openConnexions[river.lake().localId()]++;
-                        openConnexions[river.localId()]++;
-                    }
-                }
+            // The number of open connections of each zone and the rivers connected to a lake are precomputed
+            Tiles.CatalogEntry catalogEntry = Tiles.catalogEntry(tile);
 
             // Add the zones to the different partitions
-            for (Zone zone : tile.zones())
+            for (Zone zone : catalogEntry.zones()) {
+                int openConnections = catalogEntry.openConnections(zone.localId());
                 switch (zone) {
-                    case Zone.Forest forest -> forests.addSingleton(forest, openConnexions[zone.localId()]);
-                    case Zone.Meadow meadow -> meadows.addSingleton(meadow, openConnexions[zone.localId()]);
-                    case Zone.Lake lake -> riverSystems.addSingleton(lake, openConnexions[zone.localId()]);
+                    case Zone.Forest forest -> forests.addSingleton(forest, openConnections);
+                    case Zone.Meadow meadow -> meadows.addSingleton(meadow, openConnections);
+                    case Zone.Lake lake -> riverSystems.addSingleton(lake, openConnections);
                     case Zone.River river -> {
-                        riverSystems.addSingleton(river, openConnexions[zone.localId()]);
-                        rivers.addSingleton(river, openConnexions[zone.localId()] + (river.hasLake() ? -1 : 0));
+                        riverSystems.addSingleton(river, openConnections);
+                        rivers.addSingleton(river, openConnections + (river.hasLake() ? -1 : 0));
                     }
                 }
+            }
 
             // If there is a river with a lake, connect the river and the lake in the river system partitions
-            for (Zone zone : tile.zones())
-                if (zone instanceof Zone.River river && river.hasLake())
-                    riverSystems.union(river, river.lake());
+            for (Zone.River river : catalogEntry.lakeRivers())
+                riverSystems.union(river, river.lake());
         }
 
         /**
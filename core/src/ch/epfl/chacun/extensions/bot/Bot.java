@@ -2,9 +2,17 @@ package ch.epfl.chacun.extensions.bot;
 
 import ch.epfl.chacun.*;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Represents a bot that can play the game
@@ -18,6 +26,20 @@ public class Bot {
 
     /** The level of the bot */
     private final Level botLevel;
+    /** Whether the candidates of a decision are evaluated concurrently */
+    private final boolean concurrent;
+    /** The Monte Carlo tree search engine of the MONTE_CARLO level, or null for the other levels */
+    private final MonteCarloTreeSearch monteCarloTreeSearch;
+    /** The expectimax search engine of the EXPECTIMAX level, or null for the other levels */
+    private final ExpectimaxSearch expectimaxSearch;
+    /** The exact solver of the end of the game, or null for the BABY level */
+    private final EndgameSolver endgameSolver;
+    /** The maximum depth of the iterative deepening of the search */
+    private static final int MAX_SEARCH_DEPTH = 10;
+    /** The deadline of the current decision, as given by {@link System#nanoTime()} */
+    private long deadline;
+    /** Whether the current decision has been cancelled */
+    private volatile boolean cancelled;
 
     /** The last adaptive strategy used by the bot */
     private AdaptiveStrategy lastStrategy = AdaptiveStrategy.EARLY;
@@ -25,9 +47,102 @@ public class Bot {
     private AdaptiveStrategy currentStrategy = AdaptiveStrategy.EARLY;
     /** List of all placed tiles */
     private final List<PlacedTile> lastPlacedTiles = new ArrayList<>();
+    /** The number of entries of the transposition table */
+    private static final int TRANSPOSITION_TABLE_CAPACITY = 1 << 14;
+    /** The best game state reached from each game state explored during the current decision */
+    private final TranspositionTable<GameState> bestGameStates = new TranspositionTable<>(TRANSPOSITION_TABLE_CAPACITY);
+    /** The evaluations of the placed tiles and occupants already simulated from each game state of the decision */
+    private final Map<GameState, Map<Object, Evaluation>> evaluations =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+    /** The key of the evaluation of placing no occupant, the evaluations being stored in concurrent maps */
+    private static final Object NO_OCCUPANT = new Object();
+
+    /** Enum representing the levels of the bot and the time they are given to choose each action */
+    public enum Level {
+        BABY(Duration.ZERO),
+        EASY(Duration.ofMillis(250)),
+        MEDIUM(Duration.ofMillis(500)),
+        HARD(Duration.ofSeconds(1)),
+        IMPOSSIBLE(Duration.ofSeconds(2)),
+        MONTE_CARLO(Duration.ofSeconds(1)),
+        EXPECTIMAX(Duration.ofSeconds(1));
+
+        /** The time the bot is given to choose each action */
+        private final Duration timeBudget;
 
-    /** Enum representing the levels of the bot */
-    public enum Level { BABY, EASY, MEDIUM, HARD, IMPOSSIBLE }
+        /**
+         * Used to create a level
+         * @param timeBudget The time the bot is given to choose each action
+         */
+        Level(Duration timeBudget) {
+            this.timeBudget = timeBudget;
+        }
+
+        /**
+         * Used to get the time the bot is given to choose each action
+         * @return The time budget of the level
+         */
+        public Duration timeBudget() {
+            return timeBudget;
+        }
+    }
+
+    /** Enum representing the outcomes of an iteration of the search */
+    private enum SearchOutcome {
+        /** The deadline has passed or the decision has been cancelled before the end of the iteration */
+        ABORTED,
+        /** Every branch has ended before the maximum depth, so deeper iterations would find nothing more */
+        EXHAUSTED,
+        /** At least one branch has reached the maximum depth */
+        DEPTH_REACHED
+    }
+
+    /**
+     * Represents the evaluation of a placed tile or an occupant from a game state
+     * @param stateAction The action and the game state it leads to
+     * @param pointsDeltas The points won by each player with the action
+     */
+    private record Evaluation(ActionEncoder.StateAction stateAction, Map<PlayerColor, Integer> pointsDeltas) {
+        /**
+         * Used to evaluate the given action played from the given game state
+         * @param gameState The game state the action is played from
+         * @param stateAction The action and the game state it leads to
+         * @return The evaluation of the action
+         */
+        static Evaluation of(GameState gameState, ActionEncoder.StateAction stateAction) {
+            Map<PlayerColor, Integer> before = gameState.messageBoard().points();
+            Map<PlayerColor, Integer> after = stateAction.gameState().messageBoard().points();
+            return new Evaluation(stateAction, gameState.players().stream().collect(Collectors.toUnmodifiableMap(
+                    Function.identity(), p -> after.getOrDefault(p, 0) - before.getOrDefault(p, 0))));
+        }
+
+        /**
+         * Used to get the game state the action leads to
+         * @return The game state the action leads to
+         */
+        GameState gameState() {
+            return stateAction.gameState();
+        }
+
+        /**
+         * Used to get the points won by the given player with the action
+         * @param player The player
+         * @return The points won by the player
+         */
+        int pointsDelta(PlayerColor player) {
+            return pointsDeltas.get(player);
+        }
+
+        /**
+         * Used to get the points won by each player with the action, negated for the players other than the given one
+         * @param currentPlayer The player whose points are counted positively
+         * @return The signed points won by each player
+         */
+        Map<PlayerColor, Integer> signedPointsDeltas(PlayerColor currentPlayer) {
+            return pointsDeltas.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey,
+                    e -> e.getKey().equals(currentPlayer) ? e.getValue() : -e.getValue()));
+        }
+    }
 
     /** Enum representing the adaptive strategies of the bot */
     private enum AdaptiveStrategy {
@@ -53,9 +168,44 @@ public class Bot {
         }
     }
 
-    /** Used to create a bot with a certain level */
+    /**
+     * Used to create a bot with a certain level, evaluating the candidates concurrently if several processors
+     * are available
+     * @param level The level of the bot
+     */
     public Bot(Level level) {
+        this(level, Runtime.getRuntime().availableProcessors() > 1);
+    }
+
+    /**
+     * Used to create a bot with a certain level
+     * <p>
+     * The candidates are always chosen in the same order, so a concurrent bot plays the same actions as a
+     * sequential one given the same time to decide
+     * @param level The level of the bot
+     * @param concurrent Whether the candidates of a decision are evaluated concurrently
+     */
+    public Bot(Level level, boolean concurrent) {
+        this(level, concurrent, EndgameSolver.DEFAULT_TILE_THRESHOLD);
+    }
+
+    /**
+     * Used to create a bot with a certain level, solving the end of the game exactly once at most the given number
+     * of normal tiles are left
+     * <p>
+     * The solver is given three quarters of the time budget of the decision, the search of the level using what
+     * is left of it if the end of the game cannot be solved in time
+     * @param level The level of the bot
+     * @param concurrent Whether the candidates of a decision are evaluated concurrently
+     * @param endgameTileThreshold The maximum number of normal tiles left for the end of the game to be solved
+     * @throws IllegalArgumentException If the threshold is negative
+     */
+    public Bot(Level level, boolean concurrent, int endgameTileThreshold) {
         botLevel = level;
+        this.concurrent = concurrent;
+        monteCarloTreeSearch = level == Level.MONTE_CARLO ? new MonteCarloTreeSearch(level.timeBudget()) : null;
+        expectimaxSearch = level == Level.EXPECTIMAX ? new ExpectimaxSearch(level.timeBudget()) : null;
+        endgameSolver = level != Level.BABY ? new EndgameSolver(level.timeBudget(), endgameTileThreshold) : null;
         switch (level) {
             case BABY -> {
                 maxComputationsPlacingTile = 1;
@@ -73,13 +223,45 @@ public class Bot {
                 maxComputationsPlacingTile = 4;
                 maxComputationsOccupyingRetaking = 4;
             }
-            case IMPOSSIBLE -> {
+            case IMPOSSIBLE, MONTE_CARLO, EXPECTIMAX -> {
                 maxComputationsPlacingTile = 5;
                 maxComputationsOccupyingRetaking = 5;
             }
         }
     }
 
+    /**
+     * Used to cancel the decision in progress, if any, which then returns the best action found so far,
+     * for instance when the game ends while the bot is thinking
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Used to get the statistics of the last search of the Monte Carlo tree search engine
+     * @return The statistics of the last search, or null if the bot does not use the engine
+     */
+    public MonteCarloTreeSearch.Statistics monteCarloStatistics() {
+        return Objects.nonNull(monteCarloTreeSearch) ? monteCarloTreeSearch.lastStatistics() : null;
+    }
+
+    /**
+     * Used to get the statistics of the last search of the expectimax search engine
+     * @return The statistics of the last search, or null if the bot does not use the engine
+     */
+    public ExpectimaxSearch.Statistics expectimaxStatistics() {
+        return Objects.nonNull(expectimaxSearch) ? expectimaxSearch.lastStatistics() : null;
+    }
+
+    /**
+     * Used to get the last solution of the end of the game found by the bot
+     * @return The last solution, or null if the bot has not solved the end of a game yet
+     */
+    public EndgameSolver.Solution lastEndgameSolution() {
+        return Objects.nonNull(endgameSolver) ? endgameSolver.lastSolution() : null;
+    }
+
     /**
      * Used to update the maximum number of computations based on the strategy
      */
@@ -107,6 +289,23 @@ public class Bot {
      */
     public ActionEncoder.StateAction play(GameState gameState) {
         if (botLevel == Level.BABY) return playRandomAction(gameState);
+        // The whole decision, including the resolution of the end of the game, shares the same deadline and
+        // cancellation, which is only reset here so that a cancellation arriving at any time is not lost
+        long start = System.nanoTime();
+        deadline = start + botLevel.timeBudget().toNanos();
+        cancelled = false;
+
+        if (endgameSolver.canSolve(gameState)) {
+            long solverDeadline = start + botLevel.timeBudget().toNanos() / 4 * 3;
+            EndgameSolver.Solution solution = endgameSolver.solve(gameState, solverDeadline, () -> cancelled);
+            if (Objects.nonNull(solution)) {
+                if (gameState.nextAction() == GameState.Action.PLACE_TILE)
+                    lastPlacedTiles.add(solution.stateAction().gameState().board().lastPlacedTile());
+                return solution.stateAction();
+            }
+        }
+        if (botLevel == Level.MONTE_CARLO) return monteCarloTreeSearch.search(gameState, deadline, () -> cancelled);
+        if (botLevel == Level.EXPECTIMAX) return expectimaxSearch.search(gameState, deadline, () -> cancelled);
 
         int freePawns = gameState.freeOccupantsCount(gameState.currentPlayer(), Occupant.Kind.PAWN);
         int freeHuts = gameState.freeOccupantsCount(gameState.currentPlayer(), Occupant.Kind.HUT);
@@ -117,13 +316,85 @@ public class Bot {
                 (freePawns, freeHuts, occupantsOnBoard, tilesPlaced, lastStrategy);
         lastStrategy = currentStrategy;
         updateComputationsBasedOnStrategy();
-
-        ActionEncoder.StateAction stateAction = simulateGame(gameState);
+        // The best game states depend on the strategy and on the tiles placed, so they are only valid for one decision
+        bestGameStates.clear();
+        evaluations.clear();
+
+        // The simulated states are thrown away, so their messages do not need any text, and the chosen action is
+        // applied again to the given state to keep its text maker
+        ActionEncoder.StateAction simulated = simulateGame(gameState.withTextMaker(TextMakerEmpty.INSTANCE));
+        ActionEncoder.StateAction stateAction = ActionEncoder.decodeAndApply(gameState, simulated.action());
         if (gameState.nextAction() == GameState.Action.PLACE_TILE)
             lastPlacedTiles.add(stateAction.gameState().board().lastPlacedTile());
+        // Release the game states of the decision, which are not needed until the next one
+        evaluations.clear();
         return stateAction;
     }
 
+    /**
+     * Used to choose the action of the bot on the given executor, so that the calling thread is not blocked
+     * <p>
+     * Cancelling the returned future cancels the decision in progress, and the decision is not started at all
+     * if the future has been cancelled before the executor runs it
+     * @param gameState The game state
+     * @param executor The executor computing the action, which should run the decisions of a bot one at a time
+     * @return The future of the action chosen by the bot
+     */
+    public CompletableFuture<ActionEncoder.StateAction> playAsync(GameState gameState, Executor executor) {
+        CompletableFuture<ActionEncoder.StateAction> future = new CompletableFuture<>();
+        future.whenComplete((_, e) -> {
+            if (e instanceof CancellationException) cancel();
+        });
+        executor.execute(() -> {
+            if (future.isDone()) return;
+            try {
+                future.complete(play(gameState));
+            } catch (Throwable e) {
+                // Complete the future with errors too, so that the caller is never left waiting for it
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Used to think about the next decisions of the bot while the other players choose their actions, so that
+     * the bot answers them faster
+     * <p>
+     * Only the MONTE_CARLO level keeps its search trees from one decision to the next, the other levels do not
+     * ponder
+     * @param gameState The game state reached by the last action played
+     * @param stopped The condition telling when to stop pondering
+     */
+    public void ponder(GameState gameState, BooleanSupplier stopped) {
+        if (Objects.isNull(monteCarloTreeSearch) || gameState.nextAction() == GameState.Action.START_GAME
+                || gameState.nextAction() == GameState.Action.END_GAME) return;
+        monteCarloTreeSearch.ponder(gameState, stopped);
+    }
+
+    /**
+     * Used to ponder on the given executor, so that the calling thread is not blocked
+     * <p>
+     * Cancelling the returned future stops pondering, which must be done before the next decision of the bot
+     * is run by the same executor
+     * @param gameState The game state reached by the last action played
+     * @param executor The executor pondering, which should run the decisions of a bot one at a time
+     * @return The future completed when pondering stops
+     */
+    public CompletableFuture<Void> ponderAsync(GameState gameState, Executor executor) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (future.isDone()) return;
+            try {
+                ponder(gameState, future::isDone);
+                future.complete(null);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
     /**
      * Used to play a random action (for the BABY level bot)
      * @param gameState The game state
@@ -168,7 +439,7 @@ public class Bot {
         List<Map.Entry<PlacedTile, Integer>> enlargingTiles = new ArrayList<>();
 
         for (PlacedTile placedTile : potentialPlacedTiles) {
-            GameState newGameState = ActionEncoder.withPlacedTile(gameState, placedTile).gameState();
+            GameState newGameState = evaluate(gameState, placedTile).gameState();
 
             Set<Area<Zone.Water>> riverSystems = newGameState.board().riverSystemAreas();
             Set<Area<Zone.Meadow>> meadows = newGameState.board().meadowAreas();
@@ -194,30 +465,58 @@ public class Bot {
             else if (Objects.nonNull(riverSystemExtended)) enlargingTiles.add(Map.entry(placedTile, 3));
         }
         return enlargingTiles.stream()
-                .max(Comparator.comparingInt(e -> getPointsForTile(gameState, e.getKey())))
+                .max(Comparator.comparingInt(e -> getMaxPointsForTile(gameState, e.getKey())))
                 .orElse(null);
     }
 
     /**
-     * Used to simulate the game and get the best action to play
+     * Used to simulate the game and get the best action to play, deepening the search until the deadline
      * @param gameState The game state
      * @return The best action to play
      */
     private ActionEncoder.StateAction simulateGame(GameState gameState) {
-        Map<Integer, Integer> rankingTree = new TreeMap<>();
-        int maxDepth = getMaxDepthForStrategy(gameState);
-        simulateGameRecursive(gameState, rankingTree, 0, 0, maxDepth);
-
-        // Find the best decision based on rankings
-        int bestIndex = rankingTree.entrySet().stream()
-                .min(Comparator.comparingInt(Map.Entry::getValue))
-                .map(Map.Entry::getKey).orElse(0);
+        return simulateGame(gameState, MAX_SEARCH_DEPTH);
+    }
 
-        int bestDecision = bestIndex % 3;
+    /**
+     * Used to simulate the game and get the best action to play, deepening the search one level at a time until
+     * the deadline, the cancellation of the decision or the given maximum depth, and keeping the decision of the
+     * deepest iteration that has been completed
+     * @param gameState The game state
+     * @param maxDepth The maximum depth of the search
+     * @return The best action to play
+     */
+    private ActionEncoder.StateAction simulateGame(GameState gameState, int maxDepth) {
+        int bestDecision = 0;
+        for (int depth = 1; depth <= maxDepth && !isOutOfTime(); depth++) {
+            Map<Integer, Integer> rankingTree = new TreeMap<>();
+            SearchOutcome outcome = simulateGameRecursive(gameState, rankingTree, 0, 0, depth);
+            if (outcome == SearchOutcome.ABORTED) break;
+
+            // Find the best decision based on rankings
+            int bestIndex = rankingTree.entrySet().stream()
+                    .min(Comparator.comparingInt(Map.Entry::getValue))
+                    .map(Map.Entry::getKey).orElse(0);
+            bestDecision = bestIndex % 3;
+            if (outcome == SearchOutcome.EXHAUSTED) break;
+        }
 
         return getActionBasedOnDecision(bestDecision, gameState);
     }
 
+    /**
+     * Used to check if the current decision must stop searching
+     * @return True if the deadline has passed or the decision has been cancelled, false otherwise
+     */
+    private boolean isOutOfTime() {
+        return cancelled || System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * Used to get the maximum depth of the nested searches evaluating the pawns to retake
+     * @param gameState The game state
+     * @return The maximum depth for the current strategy
+     */
     private int getMaxDepthForStrategy(GameState gameState) {
         int freePawns = gameState.freeOccupantsCount(gameState.currentPlayer(), Occupant.Kind.PAWN);
         int freeHuts = gameState.freeOccupantsCount(gameState.currentPlayer(), Occupant.Kind.HUT);
@@ -258,7 +557,7 @@ public class Bot {
         return switch (gameState.nextAction()) {
             case OCCUPY_TILE -> {
                 Occupant bestOccupantToOccupy = getBestOccupantToOccupy(gameState);
-                yield ActionEncoder.withNewOccupant(gameState, bestOccupantToOccupy);
+                yield evaluate(gameState, bestOccupantToOccupy).stateAction();
             }
             case RETAKE_PAWN -> {
                 Occupant bestOccupantToRetake = getBestOccupantToRetake(gameState);
@@ -275,29 +574,37 @@ public class Bot {
      * @param currentIndex The current index
      * @param depth The depth of the tree
      * @param maxDepth The maximum depth of the tree
+     * @return The outcome of the search of the subtree
      */
-    private void simulateGameRecursive
+    private SearchOutcome simulateGameRecursive
     (GameState gameState, Map<Integer, Integer> rankingTree, int currentIndex, int depth, int maxDepth) {
         // Exit condition for maximum depth and end game
-        if (depth == maxDepth || gameState.nextAction() == GameState.Action.END_GAME) return;
+        if (depth == maxDepth) return SearchOutcome.DEPTH_REACHED;
+        if (gameState.nextAction() == GameState.Action.END_GAME) return SearchOutcome.EXHAUSTED;
 
         int limitAction = getLimitAction(gameState);
+        SearchOutcome outcome = SearchOutcome.EXHAUSTED;
 
         // Perform iterations for different actions
         for (int i = 0; i < limitAction; i++) {
+            if (isOutOfTime()) return SearchOutcome.ABORTED;
             GameState newGameState = getBestGameState(gameState);
             if (newGameState == null) break;
 
             // Perform action and update ranking
             PlayerColor newCurrentPlayer = newGameState.currentPlayer();
             List<PlayerColor> playerColorsRanking = getRankingInWholeGame(newGameState,
-                    getGameStateComparatorInWholeGame(newGameState));
+                    getExpectedScoreComparator(newGameState));
             if (playerColorsRanking.contains(newCurrentPlayer))
                 rankingTree.put(currentIndex * limitAction + i, playerColorsRanking.indexOf(newCurrentPlayer));
 
             // Recursive call for the next depth
-            simulateGameRecursive(newGameState, rankingTree, currentIndex * 3 + i, depth + 1, maxDepth);
+            SearchOutcome childOutcome =
+                    simulateGameRecursive(newGameState, rankingTree, currentIndex * 3 + i, depth + 1, maxDepth);
+            if (childOutcome == SearchOutcome.ABORTED) return SearchOutcome.ABORTED;
+            if (childOutcome == SearchOutcome.DEPTH_REACHED) outcome = SearchOutcome.DEPTH_REACHED;
         }
+        return outcome;
     }
 
     /**
@@ -306,12 +613,32 @@ public class Bot {
      * @return The new game state for the action
      */
     private GameState getBestGameState(GameState gameState) {
-        return switch (gameState.nextAction()) {
+        // Look up the game states already reached through another order of the actions
+        long key = transpositionKey(gameState);
+        GameState bestGameState = bestGameStates.get(key);
+        if (Objects.nonNull(bestGameState)) return bestGameState;
+
+        bestGameState = switch (gameState.nextAction()) {
             case PLACE_TILE -> getBestGameStateForPlacingTile(gameState);
             case OCCUPY_TILE -> getBestGameStateForOccupyingTile(gameState);
             case RETAKE_PAWN -> getBestGameStateForRetakingPawn(gameState);
             case START_GAME, END_GAME -> throw new IllegalArgumentException();
         };
+        bestGameStates.put(key, bestGameState);
+        return bestGameState;
+    }
+
+    /**
+     * Used to get the key of a game state in the transposition table, i.e. its Zobrist hash combined with
+     * the points of the players, since the best game state reached from it carries these points
+     * @param gameState The game state
+     * @return The key of the game state
+     */
+    private static long transpositionKey(GameState gameState) {
+        long key = gameState.zobristHash();
+        for (PlayerColor player : gameState.players())
+            key ^= Zobrist.pointsKey(player, gameState.messageBoard().points().getOrDefault(player, 0));
+        return key;
     }
 
     /**
@@ -322,19 +649,20 @@ public class Bot {
     private GameState getBestGameStateForPlacingTile(GameState gameState) {
         Tile tileToPlace = gameState.tileToPlace();
         List<PlacedTile> potentialPlaceTiles = getPotentialPlacedTiles(gameState, tileToPlace);
+        evaluateAll(gameState, potentialPlaceTiles);
 
         // Step 1: Check for tiles that allow immediate point gain
         List<PlacedTile> immediatePointsTiles = potentialPlaceTiles.stream()
-                .filter(tile -> getPointsForTile(gameState, tile) > 0)
+                .filter(tile -> getMaxPointsForTile(gameState, tile) > 0)
                 .toList();
 
         if (!immediatePointsTiles.isEmpty()) {
             // Choose the best among the immediate points tiles
             PlacedTile bestImmediatePointsTile = immediatePointsTiles.stream()
-                    .max(Comparator.comparingInt(tile -> getPointsForTile(gameState, tile)))
+                    .max(Comparator.comparingInt(tile -> getMaxPointsForTile(gameState, tile)))
                     .orElse(immediatePointsTiles.get(0));
 
-            return ActionEncoder.withPlacedTile(gameState, bestImmediatePointsTile).gameState();
+            return evaluate(gameState, bestImmediatePointsTile).gameState();
         }
 
         // Fallback to the original logic
@@ -354,13 +682,69 @@ public class Bot {
                 ? closestTiles.stream().max(ptComparator).orElse(maxPointsPlacedTiles.get(0))
                 : maxPointsPlacedTiles.get(0);
 
-        return ActionEncoder.withPlacedTile(gameState, bestPlacedTile).gameState();
+        return evaluate(gameState, bestPlacedTile).gameState();
     }
 
-    private int getPointsForTile(GameState gameState, PlacedTile placedTile) {
-        GameState newGameState = ActionEncoder.withPlacedTile(gameState, placedTile).gameState();
-        return newGameState.messageBoard().points().getOrDefault(gameState.currentPlayer(), 0) -
-                gameState.messageBoard().points().getOrDefault(gameState.currentPlayer(), 0);
+    /**
+     * Used to get the evaluation of the given placed tile from the given game state, simulating the placement
+     * only the first time it is evaluated from this game state during the decision
+     * @param gameState The game state
+     * @param placedTile The placed tile
+     * @return The evaluation of the placed tile
+     */
+    private Evaluation evaluate(GameState gameState, PlacedTile placedTile) {
+        return evaluations.computeIfAbsent(gameState, _ -> new ConcurrentHashMap<>()).computeIfAbsent(placedTile,
+                _ -> Evaluation.of(gameState, ActionEncoder.withPlacedTile(gameState, placedTile)));
+    }
+
+    /**
+     * Used to evaluate the given placed tiles from the given game state, concurrently if the bot is concurrent,
+     * so that the following evaluations of these tiles are read from the cache
+     * @param gameState The game state
+     * @param placedTiles The placed tiles
+     */
+    private void evaluateAll(GameState gameState, List<PlacedTile> placedTiles) {
+        Map<Object, Evaluation> evaluated = evaluations.getOrDefault(gameState, Map.of());
+        mapConcurrently(placedTiles.stream().filter(p -> !evaluated.containsKey(p)).toList(),
+                p -> evaluate(gameState, p));
+    }
+
+    /**
+     * Used to get the evaluation of the given occupant from the given game state, simulating the occupation
+     * only the first time it is evaluated from this game state during the decision
+     * @param gameState The game state
+     * @param occupant The occupant, or null to place no occupant
+     * @return The evaluation of the occupant
+     */
+    private Evaluation evaluate(GameState gameState, Occupant occupant) {
+        return evaluations.computeIfAbsent(gameState, _ -> new ConcurrentHashMap<>())
+                .computeIfAbsent(Objects.requireNonNullElse(occupant, NO_OCCUPANT),
+                        _ -> Evaluation.of(gameState, ActionEncoder.withNewOccupant(gameState, occupant)));
+    }
+
+    /**
+     * Used to apply the given function to each of the given candidates, concurrently on virtual threads if the
+     * bot is concurrent and there are several candidates, the results being in the order of the candidates
+     * @param candidates The candidates
+     * @param function The function to apply to each candidate
+     * @return The results of the function, in the order of the candidates
+     * @param <T> The type of the candidates
+     * @param <R> The type of the results
+     * @throws CancellationException If the thread is interrupted while waiting for the results
+     */
+    private <T, R> List<R> mapConcurrently(List<T> candidates, Function<T, R> function) {
+        if (!concurrent || candidates.size() < 2) return candidates.stream().map(function).toList();
+
+        try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
+            List<StructuredTaskScope.Subtask<R>> subtasks = candidates.stream()
+                    .map(c -> scope.fork(() -> function.apply(c)))
+                    .toList();
+            scope.join().throwIfFailed(e -> e instanceof RuntimeException r ? r : new IllegalStateException(e));
+            return subtasks.stream().map(StructuredTaskScope.Subtask::get).toList();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
     }
 
     private Occupant getOccupantEnlargingAreaIfAny(GameState gameState, PlacedTile placedTile) {
@@ -368,14 +752,14 @@ public class Bot {
                 && Objects.nonNull(placedTile)) || gameState.nextAction() == GameState.Action.OCCUPY_TILE);
 
         GameState newGameState = gameState.nextAction() == GameState.Action.PLACE_TILE
-                ? ActionEncoder.withPlacedTile(gameState, placedTile).gameState()
+                ? evaluate(gameState, placedTile).gameState()
                 : gameState;
 
         if (newGameState.nextAction() != GameState.Action.OCCUPY_TILE) return null;
 
         for (PlacedTile lastPlacedTile : lastPlacedTiles) {
             for (Occupant occupant : newGameState.lastTilePotentialOccupants()) {
-                GameState newGameStateWithOccupant = ActionEncoder.withNewOccupant(newGameState, occupant).gameState();
+                GameState newGameStateWithOccupant = evaluate(newGameState, occupant).gameState();
 
                 Set<Area<Zone.Water>> riverSystems = newGameStateWithOccupant.board().riverSystemAreas();
                 Set<Area<Zone.Meadow>> meadows = newGameStateWithOccupant.board().meadowAreas();
@@ -383,13 +767,13 @@ public class Bot {
 
                 boolean extendsForest = forests.stream()
                         .anyMatch(area -> area.zones().stream().anyMatch(z -> lastPlacedTile.forestZones().contains(z))
-                                && area.zones().stream().anyMatch(z -> z.id() == occupant.zoneId()));
+                                && area.containsZoneWithId(occupant.zoneId()));
                 boolean extendsMeadow = meadows.stream()
                         .anyMatch(area -> area.zones().stream().anyMatch(z -> lastPlacedTile.meadowZones().contains(z))
-                                && area.zones().stream().anyMatch(z -> z.id() == occupant.zoneId()));
+                                && area.containsZoneWithId(occupant.zoneId()));
                 boolean extendsRiverSystem = riverSystems.stream()
                         .anyMatch(area -> area.zones().stream().anyMatch(z -> lastPlacedTile.riverZones().contains(z))
-                                && area.zones().stream().anyMatch(z -> z.id() == occupant.zoneId()));
+                                && area.containsZoneWithId(occupant.zoneId()));
 
                 if (extendsForest || extendsMeadow || extendsRiverSystem) return occupant;
             }
@@ -423,7 +807,7 @@ public class Bot {
      */
     private GameState getBestGameStateForOccupyingTile(GameState gameState) {
         Occupant bestOccupantToOccupy = getBestOccupantToOccupy(gameState);
-        return ActionEncoder.withNewOccupant(gameState, bestOccupantToOccupy).gameState();
+        return evaluate(gameState, bestOccupantToOccupy).gameState();
     }
 
     /**
@@ -458,6 +842,7 @@ public class Bot {
      * @return The maximum points for the list of tiles
      */
     private int getMaxPointsForTiles(GameState gameState, List<PlacedTile> potentialPlaceTiles) {
+        evaluateAll(gameState, potentialPlaceTiles);
         return potentialPlaceTiles.stream()
                 .map(p -> getMaxPointsForTile(gameState, p))
                 .max(Integer::compareTo)
@@ -471,9 +856,7 @@ public class Bot {
      * @return The maximum points for the tile
      */
     private int getMaxPointsForTile(GameState gameState, PlacedTile placedTile) {
-        GameState newGameState = ActionEncoder.withPlacedTile(gameState, placedTile).gameState();
-        return newGameState.messageBoard().points().getOrDefault(gameState.currentPlayer(), 0) -
-                gameState.messageBoard().points().getOrDefault(gameState.currentPlayer(), 0);
+        return evaluate(gameState, placedTile).pointsDelta(gameState.currentPlayer());
     }
 
     /**
@@ -495,15 +878,21 @@ public class Bot {
                 })
                 .toList();
 
-        return validOccupants.stream()
-                .max(Comparator.comparingInt(o -> {
-                    GameState newGameStateWithOccupantRemoved = gameState.withOccupantRemoved(o);
-                    int points = simulateGame(newGameStateWithOccupantRemoved).gameState().messageBoard().points()
-                            .getOrDefault(gameState.currentPlayer(), 0);
-                    if (shouldPrioritize) points += 5; // Add a bias to prioritize this action
-                    else points -= 5; // Temporize by reducing the score
-                    return points;
-                }))
+        // Each candidate runs a whole nested search, so they are scored concurrently
+        List<Integer> occupantsPoints = mapConcurrently(validOccupants, o -> {
+            GameState newGameStateWithOccupantRemoved = gameState.withOccupantRemoved(o);
+            int points = simulateGame(newGameStateWithOccupantRemoved, getMaxDepthForStrategy(gameState))
+                    .gameState().messageBoard().points()
+                    .getOrDefault(gameState.currentPlayer(), 0);
+            if (shouldPrioritize) points += 5; // Add a bias to prioritize this action
+            else points -= 5; // Temporize by reducing the score
+            return points;
+        });
+
+        // The first of the best occupants is kept, as with a sequential evaluation
+        return IntStream.range(0, validOccupants.size()).boxed()
+                .max(Comparator.comparingInt(occupantsPoints::get))
+                .map(validOccupants::get)
                 .orElse(null);
     }
 
@@ -554,12 +943,7 @@ public class Bot {
      * @return The signed points if occupying the occupant
      */
     private Map<PlayerColor, Integer> getSignedPointsIfOccupying(GameState gameState, Occupant occupant) {
-        return gameState.players().stream().collect(Collectors.toMap(Function.identity(), player -> {
-            GameState newGameState = gameState.withNewOccupant(occupant);
-            int newPoints = newGameState.messageBoard().points().getOrDefault(player, 0) -
-                    gameState.messageBoard().points().getOrDefault(player, 0);
-            return player.equals(gameState.currentPlayer()) ? newPoints : -newPoints;
-        }));
+        return evaluate(gameState, occupant).signedPointsDeltas(gameState.currentPlayer());
     }
 
     /**
@@ -569,7 +953,7 @@ public class Bot {
      */
     private ActionEncoder.StateAction playMaximizingPointsTurnForBot(GameState gameState) {
         PlacedTile bestPlacedTile = getBestPlacedTile(gameState);
-        return ActionEncoder.withPlacedTile(gameState, bestPlacedTile);
+        return evaluate(gameState, bestPlacedTile).stateAction();
     }
 
     private PlacedTile getBestPlacedTile(GameState gameState) {
@@ -608,7 +992,7 @@ public class Bot {
                 .min(Comparator.comparingInt(p -> placedTileRanking.get(p).indexOf(bestOpponent)))
                 .orElse(null);
 
-        return ActionEncoder.withPlacedTile(gameState, bestPlacedTile);
+        return evaluate(gameState, bestPlacedTile).stateAction();
     }
 
     /**
@@ -625,7 +1009,7 @@ public class Bot {
         PlacedTile bestPlacedTile = minPointsPlacedTiles.stream()
                 .max(getPlacedTileComparatorForBot(gameState)).orElse(null);
 
-        return ActionEncoder.withPlacedTile(gameState, bestPlacedTile);
+        return evaluate(gameState, bestPlacedTile).stateAction();
     }
 
     /**
@@ -636,11 +1020,7 @@ public class Bot {
      */
     private List<PlacedTile> getPotentialPlacedTiles(GameState gameState, Tile tileToPlace) {
         Preconditions.checkArgument(Objects.nonNull(tileToPlace));
-        return gameState.board().insertionPositions().stream()
-                .flatMap(pos -> Rotation.ALL.stream()
-                        .map(r -> new PlacedTile(tileToPlace, gameState.currentPlayer(), r, pos)))
-                .filter(p -> gameState.board().canAddTile(p))
-                .toList();
+        return gameState.board().legalPlacements(tileToPlace).placedTiles(gameState.currentPlayer());
     }
 
     /**
@@ -681,6 +1061,17 @@ public class Bot {
         return Comparator.comparingInt(p -> gameState.messageBoard().points().getOrDefault(p, 0));
     }
 
+    /**
+     * Used to get the comparator of the players by their final score expected from the game state, which also
+     * accounts for the areas that are not scored yet
+     * @param gameState The game state
+     * @return The comparator of the players by their expected final score
+     */
+    private Comparator<PlayerColor> getExpectedScoreComparator(GameState gameState) {
+        Map<PlayerColor, Double> expectedFinalScores = PositionEvaluator.expectedFinalScores(gameState);
+        return Comparator.comparingDouble(expectedFinalScores::get);
+    }
+
     /**
      * Used to get the comparator for the player color in one turn
      * @param gameState The game state
@@ -689,17 +1080,12 @@ public class Bot {
      */
     private Comparator<PlayerColor> getPlayerColorComparatorInOneTurn(GameState gameState,
                                                                       List<PlacedTile> maxPointsPlacedTiles) {
-        return (p1, p2) -> {
-            int p1Points = maxPointsPlacedTiles.stream()
-                    .map(p -> ActionEncoder.withPlacedTile(gameState, p).gameState())
-                    .map(g -> g.messageBoard().points().getOrDefault(p1, 0))
-                    .max(Integer::compareTo).orElse(0);
-            int p2Points = maxPointsPlacedTiles.stream()
-                    .map(p -> ActionEncoder.withPlacedTile(gameState, p).gameState())
-                    .map(g -> g.messageBoard().points().getOrDefault(p2, 0))
-                    .max(Integer::compareTo).orElse(0);
-            return p1Points - p2Points;
-        };
+        // The best points of each player only depend on the player, so they are computed once for all comparisons
+        Map<PlayerColor, Integer> bestPoints = gameState.players().stream()
+                .collect(Collectors.toMap(Function.identity(), player -> maxPointsPlacedTiles.stream()
+                        .mapToInt(p -> evaluate(gameState, p).gameState().messageBoard().points().getOrDefault(player, 0))
+                        .max().orElse(0)));
+        return Comparator.comparingInt(bestPoints::get);
     }
 
     /**
@@ -774,11 +1160,6 @@ public class Bot {
      * @return The signed points if the placed tile is placed
      */
     private Map<PlayerColor, Integer> getSignedPointsIfPlacedTile(GameState gameState, PlacedTile placedTile) {
-        return gameState.players().stream().collect(Collectors.toMap(Function.identity(), player -> {
-            GameState newGameState = ActionEncoder.withPlacedTile(gameState, placedTile).gameState();
-            int newPoints = newGameState.messageBoard().points().getOrDefault(player, 0) -
-                    gameState.messageBoard().points().getOrDefault(player, 0);
-            return player.equals(gameState.currentPlayer()) ? newPoints : -newPoints;
-        }));
+        return evaluate(gameState, placedTile).signedPointsDeltas(gameState.currentPlayer());
     }
 }
\ No newline at end of file
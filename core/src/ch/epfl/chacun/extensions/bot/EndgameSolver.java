@@ -0,0 +1,244 @@
+package ch.epfl.chacun.extensions.bot;
+
+import ch.epfl.chacun.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Represents a solver computing the exact value of the end of the game once only a few normal tiles are left,
+ * searching every placement, every occupant and every possible draw until the final scores are tallied
+ * <p>
+ * A tile drawn during the search is a chance node whose value is the average over all the tiles of its deck that
+ * could be drawn and placed, each tile being equally likely to be the next one placed. The tiles that cannot be
+ * placed are kept in the deck rather than discarded, which only matters if a later tile makes them placeable
+ * <p>
+ * Each player maximizes the difference between their final score and the best final score of the other players.
+ * The values of the positions are memoised in a transposition table whose keys combine the hash of the state, the
+ * tiles left and the points, so that the positions reached by several orders of the actions are solved once, and
+ * the positions solved during a decision are reused by the next ones
+ * <p>
+ * The solver runs on the calling thread and gives up when its time budget is exhausted
+ * @author Adam Bekkar (379476)
+ */
+public final class EndgameSolver {
+    /** The default maximum number of normal tiles left for the solver to search */
+    public static final int DEFAULT_TILE_THRESHOLD = 0;
+    /** The number of player colors */
+    private static final int COLOR_COUNT = PlayerColor.ALL.size();
+    /** The number of entries of the transposition table */
+    private static final int TRANSPOSITION_TABLE_CAPACITY = 1 << 18;
+    /** The key combined with the hash of a state whose tile to place is still to be drawn */
+    private static final long CHANCE_KEY = 0x3C6EF372FE94F82BL;
+
+    /** The time given to each resolution */
+    private final Duration timeBudget;
+    /** The maximum number of normal tiles left for the solver to search */
+    private final int tileThreshold;
+    /** The solved values of the positions, indexed by their key */
+    private final TranspositionTable<double[]> values = new TranspositionTable<>(TRANSPOSITION_TABLE_CAPACITY);
+    /** The last solution found */
+    private volatile Solution lastSolution;
+    /** Whether the resolution run within the time budget of the solver has been cancelled */
+    private volatile boolean cancelled;
+
+    /** The deadline of the resolution in progress, as given by {@link System#nanoTime()} */
+    private long deadline;
+    /** The condition telling if the resolution in progress has been cancelled */
+    private BooleanSupplier isCancelled;
+    /** The number of nodes visited by the resolution in progress */
+    private long nodes;
+    /** The players of the game solved */
+    private List<PlayerColor> players;
+
+    /**
+     * Represents the solution of the end of a game
+     * @param stateAction The best action of the current player, and the state it leads to
+     * @param expectedFinalScores The expected final score of each player when every player plays their best action
+     * @param nodes The number of nodes visited
+     * @param elapsed The time taken by the resolution
+     */
+    public record Solution(ActionEncoder.StateAction stateAction, Map<PlayerColor, Double> expectedFinalScores,
+                           long nodes, Duration elapsed) {
+        public Solution {
+            expectedFinalScores = Map.copyOf(expectedFinalScores);
+        }
+    }
+
+    /**
+     * Used to create a solver
+     * @param timeBudget The time given to each resolution
+     * @param tileThreshold The maximum number of normal tiles left for the solver to search
+     * @throws IllegalArgumentException If the time budget is not positive or the threshold is negative
+     */
+    public EndgameSolver(Duration timeBudget, int tileThreshold) {
+        Preconditions.checkArgument(timeBudget.isPositive() && tileThreshold >= 0);
+        this.timeBudget = timeBudget;
+        this.tileThreshold = tileThreshold;
+    }
+
+    /**
+     * Used to get the last solution found
+     * @return The last solution found, or null if no game has been solved yet
+     */
+    public Solution lastSolution() {
+        return lastSolution;
+    }
+
+    /**
+     * Used to cancel the resolution run within the time budget of the solver, if any, which then gives up
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Used to check if the given state of the game has few enough normal tiles left to be solved
+     * @param gameState The state of the game
+     * @return True if the solver can search the given state, false otherwise
+     */
+    public boolean canSolve(GameState gameState) {
+        return gameState.nextAction() != GameState.Action.START_GAME
+                && gameState.nextAction() != GameState.Action.END_GAME
+                && gameState.tileDecks().deckSize(Tile.Kind.NORMAL) <= tileThreshold;
+    }
+
+    /**
+     * Used to solve the end of the game from the given state within the time budget of the solver, the solver
+     * running one resolution at a time
+     * @param gameState The state of the game
+     * @return The solution, or null if the state has too many tiles left or the time budget has been exhausted
+     */
+    public Solution solve(GameState gameState) {
+        cancelled = false;
+        return solve(gameState, System.nanoTime() + timeBudget.toNanos(), () -> cancelled);
+    }
+
+    /**
+     * Used to solve the end of the game from the given state until the given deadline, the solver running one
+     * resolution at a time
+     * @param gameState The state of the game
+     * @param deadline The deadline of the resolution, as given by {@link System#nanoTime()}
+     * @param cancelled The condition telling if the resolution has been cancelled, which is never reset by the
+     * solver
+     * @return The solution, or null if the state has too many tiles left, the deadline has passed or the
+     * resolution has been cancelled
+     */
+    public Solution solve(GameState gameState, long deadline, BooleanSupplier cancelled) {
+        if (!canSolve(gameState)) return null;
+        long start = System.nanoTime();
+        this.deadline = deadline;
+        isCancelled = cancelled;
+        nodes = 0;
+        players = gameState.players();
+
+        SearchState state = new SearchState(gameState);
+        PlayerColor player = state.currentPlayer();
+        Object bestAction = null;
+        double[] bestValues = null;
+        double bestUtility = Double.NEGATIVE_INFINITY;
+        for (Object action : SearchActions.actionsOf(state)) {
+            SearchActions.apply(state, action);
+            double[] actionValues = value(state, false);
+            state.undo();
+            if (Objects.isNull(actionValues)) return null;
+
+            double utility = SearchActions.utility(actionValues, player, players);
+            if (utility > bestUtility) {
+                bestAction = action;
+                bestValues = actionValues;
+                bestUtility = utility;
+            }
+        }
+
+        Map<PlayerColor, Double> expectedFinalScores = new HashMap<>();
+        for (PlayerColor p : players) expectedFinalScores.put(p, bestValues[p.ordinal()]);
+        Solution solution = new Solution(SearchActions.apply(gameState, bestAction), expectedFinalScores,
+                nodes, Duration.ofNanos(System.nanoTime() - start));
+        lastSolution = solution;
+        return solution;
+    }
+
+    /**
+     * Used to get the final scores of the players from the given state when every player plays their best action
+     * @param state The state, which is restored before returning
+     * @param drawn Whether the tile to place, if any, has already been chosen among the possible draws
+     * @return The expected final scores of the players, indexed by color ordinal, or null if the resolution has
+     * been stopped
+     */
+    private double[] value(SearchState state, boolean drawn) {
+        nodes++;
+        if (state.nextAction() == GameState.Action.END_GAME) return state.expectedFinalScores();
+        if (isCancelled.getAsBoolean() || System.nanoTime() - deadline >= 0) return null;
+
+        boolean chance = state.nextAction() == GameState.Action.PLACE_TILE && !drawn;
+        long key = key(state, chance);
+        double[] solvedValues = values.get(key);
+        if (Objects.nonNull(solvedValues)) return solvedValues;
+
+        solvedValues = chance ? expectedValue(state) : bestValue(state);
+        if (Objects.nonNull(solvedValues)) values.put(key, solvedValues);
+        return solvedValues;
+    }
+
+    /**
+     * Used to get the final scores of the players when the current player plays their best action
+     * @param state The state, which is restored before returning
+     * @return The final scores of the players, indexed by color ordinal, or null if the resolution has been stopped
+     */
+    private double[] bestValue(SearchState state) {
+        PlayerColor player = state.currentPlayer();
+        double[] bestValues = null;
+        double bestUtility = Double.NEGATIVE_INFINITY;
+        for (Object action : SearchActions.actionsOf(state)) {
+            SearchActions.apply(state, action);
+            double[] actionValues = value(state, false);
+            state.undo();
+            if (Objects.isNull(actionValues)) return null;
+
+            double utility = SearchActions.utility(actionValues, player, players);
+            if (utility > bestUtility) {
+                bestValues = actionValues;
+                bestUtility = utility;
+            }
+        }
+        return bestValues;
+    }
+
+    /**
+     * Used to get the average final scores of the players over all the possible draws of the tile to place
+     * @param state The state whose tile to place has just been drawn, which is restored before returning
+     * @return The expected final scores of the players, indexed by color ordinal, or null if the resolution has
+     * been stopped
+     */
+    private double[] expectedValue(SearchState state) {
+        Tile drawnTile = state.tileToPlace();
+        List<Tile> draws = state.possibleDraws();
+        double[] expectedValues = new double[COLOR_COUNT];
+        for (Tile tile : draws) {
+            state.redraw(tile);
+            double[] drawValues = value(state, true);
+            if (Objects.isNull(drawValues)) {
+                state.redraw(drawnTile);
+                return null;
+            }
+            for (int i = 0; i < COLOR_COUNT; i++) expectedValues[i] += drawValues[i] / draws.size();
+        }
+        state.redraw(drawnTile);
+        return expectedValues;
+    }
+
+    /**
+     * Used to get the key of the given state in the transposition table, combining its hash with the tiles left,
+     * the points of the players and whether its tile to place is still to be drawn
+     * @param state The state
+     * @param chance Whether the tile to place of the state is still to be drawn
+     * @return The key of the state
+     */
+    private long key(SearchState state, boolean chance) {
+        long key = state.zobristHash() ^ state.deckHash();
+        for (PlayerColor player : players) key ^= Zobrist.pointsKey(player, state.points(player));
+        return chance ? key ^ CHANCE_KEY : key;
+    }
+}
@@ -0,0 +1,317 @@
+package ch.epfl.chacun.extensions.bot;
+
+import ch.epfl.chacun.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Represents an expectimax search engine choosing the action of the current player within a time budget, searching
+ * the actions of the players and the draws of the tiles on a {@link SearchState}
+ * <p>
+ * The players do not know the order of the tiles left in the decks, so a tile drawn during the search is a chance
+ * node whose value is the expected value over all the tiles that could have been drawn. These tiles are grouped
+ * in classes of tiles having the same sides and the same scoring features, only one tile of each class being
+ * searched and weighted by the size of its class, which keeps the branching of the chance nodes tractable
+ * <p>
+ * Each player maximizes the difference between their value and the best value of the other players, the values
+ * of a leaf being the final scores of the players estimated by {@link PositionEvaluator}, and the search is
+ * deepened one action at a time until the deadline
+ * @author Adam Bekkar (379476)
+ */
+public final class ExpectimaxSearch {
+    /** The default maximum depth of the search, in actions */
+    public static final int DEFAULT_MAX_DEPTH = 12;
+    /** The number of player colors */
+    private static final int COLOR_COUNT = PlayerColor.ALL.size();
+    /** The class of each tile of the game, indexed by tile id */
+    private static final TileClass[] TILE_CLASSES;
+
+    static {
+        int tileIdCount = Tiles.TILES.stream().mapToInt(Tile::id).max().orElse(-1) + 1;
+        TILE_CLASSES = new TileClass[tileIdCount];
+        for (Tile tile : Tiles.TILES) TILE_CLASSES[tile.id()] = TileClass.of(tile);
+    }
+
+    /** The time given to each search */
+    private final Duration timeBudget;
+    /** The maximum depth of the search, in actions */
+    private final int maxDepth;
+    /** The statistics of the last search */
+    private volatile Statistics lastStatistics = new Statistics(0, 0, Duration.ZERO);
+    /** Whether the search run within the time budget of the engine has been cancelled */
+    private volatile boolean cancelled;
+
+    /** The deadline of the search in progress, as given by {@link System#nanoTime()} */
+    private long deadline;
+    /** The condition telling if the search in progress has been cancelled */
+    private BooleanSupplier isCancelled;
+    /** The number of nodes visited by the search in progress */
+    private long nodes;
+    /** Whether a leaf of the current iteration has been cut by the maximum depth rather than by the end of the game */
+    private boolean depthReached;
+    /** The players of the game searched */
+    private List<PlayerColor> players;
+
+    /**
+     * Represents the statistics of a search
+     * @param depth The depth of the deepest iteration completed, in actions
+     * @param nodes The number of nodes visited
+     * @param elapsed The time taken by the search
+     */
+    public record Statistics(int depth, long nodes, Duration elapsed) {}
+
+    /**
+     * Represents a class of tiles that are equivalent for the search, having the same kinds of sides up to a
+     * rotation and zones with the same scoring features touching the same number of sides
+     * <p>
+     * The features only tell whether a zone has prey, tigers or fish rather than how many, as almost every tile
+     * of the game would otherwise be alone in its class
+     * @param sideKinds The smallest packed encoding of the kinds of the sides of the tiles over the rotations
+     * @param zoneFeatures The sorted encodings of the features of the zones of the tiles
+     */
+    private record TileClass(int sideKinds, List<Integer> zoneFeatures) {
+        /**
+         * Used to get the class of the given tile
+         * @param tile The tile
+         * @return The class of the tile
+         */
+        static TileClass of(Tile tile) {
+            int sideKinds = Rotation.ALL.stream().mapToInt(tile::sideKinds).min().orElseThrow();
+            List<Integer> zoneFeatures = tile.zones().stream()
+                    .map(zone -> featuresOf(tile, zone))
+                    .sorted()
+                    .toList();
+            return new TileClass(sideKinds, zoneFeatures);
+        }
+
+        /**
+         * Used to encode the features of the given zone of the given tile that matter for the scoring: its kind,
+         * the number of sides it touches, its special power, the kind of a forest, whether a meadow has prey and
+         * tigers, and whether a river has fish and a lake
+         * @param tile The tile of the zone
+         * @param zone The zone
+         * @return The encoding of the features of the zone
+         */
+        private static int featuresOf(Tile tile, Zone zone) {
+            int sides = (int) tile.sides().stream().filter(side -> side.zones().contains(zone)).count();
+            int specialPower = Objects.isNull(zone.specialPower()) ? 0 : zone.specialPower().ordinal() + 1;
+            int kind, features;
+            switch (zone) {
+                case Zone.Forest forest -> {
+                    kind = 0;
+                    features = forest.kind().ordinal();
+                }
+                case Zone.Meadow meadow -> {
+                    kind = 1;
+                    boolean hasTiger = meadow.animals().stream().anyMatch(a -> a.kind() == Animal.Kind.TIGER);
+                    boolean hasPrey = meadow.animals().stream().anyMatch(a -> a.kind() != Animal.Kind.TIGER);
+                    features = (hasPrey ? 2 : 0) | (hasTiger ? 1 : 0);
+                }
+                case Zone.River river -> {
+                    kind = 2;
+                    features = (river.fishCount() > 0 ? 2 : 0) | (river.hasLake() ? 1 : 0);
+                }
+                case Zone.Lake _ -> {
+                    kind = 3;
+                    features = 0;
+                }
+            }
+            return ((kind << 3 | sides) << 3 | specialPower) << 16 | features;
+        }
+    }
+
+    /**
+     * Used to create an engine searching at most DEFAULT_MAX_DEPTH actions ahead
+     * @param timeBudget The time given to each search
+     */
+    public ExpectimaxSearch(Duration timeBudget) {
+        this(timeBudget, DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Used to create an engine
+     * @param timeBudget The time given to each search
+     * @param maxDepth The maximum depth of the search, in actions
+     * @throws IllegalArgumentException If the time budget or the maximum depth is not positive
+     */
+    public ExpectimaxSearch(Duration timeBudget, int maxDepth) {
+        Preconditions.checkArgument(timeBudget.isPositive() && maxDepth > 0);
+        this.timeBudget = timeBudget;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Used to get the statistics of the last search
+     * @return The statistics of the last search
+     */
+    public Statistics lastStatistics() {
+        return lastStatistics;
+    }
+
+    /**
+     * Used to cancel the search run within the time budget of the engine, if any, which then returns the best
+     * action found so far
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Used to search the best action of the current player within the time budget of the engine and apply it to
+     * the given state, the engine running one search at a time
+     * @param gameState The state of the game
+     * @return The state reached by applying the best action found, and the encoded action
+     * @throws IllegalArgumentException If the game has not started or is over
+     */
+    public ActionEncoder.StateAction search(GameState gameState) {
+        cancelled = false;
+        return search(gameState, System.nanoTime() + timeBudget.toNanos(), () -> cancelled);
+    }
+
+    /**
+     * Used to search the best action of the current player until the given deadline and apply it to the given
+     * state, the engine running one search at a time
+     * @param gameState The state of the game
+     * @param deadline The deadline of the search, as given by {@link System#nanoTime()}
+     * @param cancelled The condition telling if the search has been cancelled, which is never reset by the engine
+     * @return The state reached by applying the best action found, and the encoded action
+     * @throws IllegalArgumentException If the game has not started or is over
+     */
+    public ActionEncoder.StateAction search(GameState gameState, long deadline, BooleanSupplier cancelled) {
+        Preconditions.checkArgument(gameState.nextAction() != GameState.Action.START_GAME
+                && gameState.nextAction() != GameState.Action.END_GAME);
+        long start = System.nanoTime();
+        this.deadline = deadline;
+        isCancelled = cancelled;
+        nodes = 0;
+        players = gameState.players();
+
+        SearchState state = new SearchState(gameState);
+        List<Object> actions = SearchActions.actionsOf(state);
+        Object bestAction = actions.getFirst();
+        int completedDepth = 0;
+
+        // Deepen the search one action at a time, keeping the best action of the deepest completed iteration
+        for (int depth = 1; actions.size() > 1 && depth <= maxDepth && !isOutOfTime(); depth++) {
+            depthReached = false;
+            int bestIndex = bestActionIndex(state, actions, depth);
+            if (bestIndex < 0) break;
+            bestAction = actions.get(bestIndex);
+            completedDepth = depth;
+            if (!depthReached) break;
+        }
+
+        lastStatistics = new Statistics(completedDepth, nodes, Duration.ofNanos(System.nanoTime() - start));
+        return SearchActions.apply(gameState, bestAction);
+    }
+
+    /**
+     * Used to check if the search in progress must stop
+     * @return True if the deadline has passed or the search has been cancelled, false otherwise
+     */
+    private boolean isOutOfTime() {
+        return isCancelled.getAsBoolean() || System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * Used to get the index of the best action of the root, the first one being kept in case of a tie
+     * @param state The state of the root
+     * @param actions The actions of the root
+     * @param depth The depth of the search, in actions
+     * @return The index of the best action, or -1 if the search has been stopped before its end
+     */
+    private int bestActionIndex(SearchState state, List<Object> actions, int depth) {
+        PlayerColor player = state.currentPlayer();
+        int bestIndex = -1;
+        double bestUtility = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < actions.size(); i++) {
+            SearchActions.apply(state, actions.get(i));
+            double[] values = value(state, depth - 1, false);
+            state.undo();
+            if (Objects.isNull(values)) return -1;
+
+            double utility = SearchActions.utility(values, player, players);
+            if (utility > bestUtility) {
+                bestIndex = i;
+                bestUtility = utility;
+            }
+        }
+        return bestIndex;
+    }
+
+    /**
+     * Used to get the values of the players in the given state, searched to the given depth
+     * @param state The state, which is restored before returning
+     * @param depth The remaining depth of the search, in actions
+     * @param drawn Whether the tile to place, if any, has already been chosen among the possible draws
+     * @return The values of the players, indexed by color ordinal, or null if the search has been stopped
+     */
+    private double[] value(SearchState state, int depth, boolean drawn) {
+        nodes++;
+        if (state.nextAction() == GameState.Action.END_GAME) return evaluate(state);
+        if (depth == 0) {
+            depthReached = true;
+            return evaluate(state);
+        }
+        if (isOutOfTime()) return null;
+        if (state.nextAction() == GameState.Action.PLACE_TILE && !drawn) return expectedValue(state, depth);
+
+        PlayerColor player = state.currentPlayer();
+        double[] bestValues = null;
+        double bestUtility = Double.NEGATIVE_INFINITY;
+        for (Object action : SearchActions.actionsOf(state)) {
+            SearchActions.apply(state, action);
+            double[] values = value(state, depth - 1, false);
+            state.undo();
+            if (Objects.isNull(values)) return null;
+
+            double utility = SearchActions.utility(values, player, players);
+            if (utility > bestUtility) {
+                bestValues = values;
+                bestUtility = utility;
+            }
+        }
+        return bestValues;
+    }
+
+    /**
+     * Used to get the expected values of the players over the possible draws of the tile to place, searching one
+     * tile of each class of tiles, weighted by the number of tiles of its class
+     * @param state The state whose tile to place has just been drawn, which is restored before returning
+     * @param depth The remaining depth of the search, in actions
+     * @return The expected values of the players, indexed by color ordinal, or null if the search has been stopped
+     */
+    private double[] expectedValue(SearchState state, int depth) {
+        Tile drawnTile = state.tileToPlace();
+        List<Tile> draws = state.possibleDraws();
+        Collection<List<Tile>> classes = draws.stream()
+                .collect(Collectors.groupingBy(t -> TILE_CLASSES[t.id()], LinkedHashMap::new, Collectors.toList()))
+                .values();
+
+        double[] expectedValues = new double[COLOR_COUNT];
+        for (List<Tile> tiles : classes) {
+            state.redraw(tiles.getFirst());
+            double[] values = value(state, depth, true);
+            if (Objects.isNull(values)) {
+                state.redraw(drawnTile);
+                return null;
+            }
+            double probability = (double) tiles.size() / draws.size();
+            for (int i = 0; i < COLOR_COUNT; i++) expectedValues[i] += probability * values[i];
+        }
+        state.redraw(drawnTile);
+        return expectedValues;
+    }
+
+    /**
+     * Used to evaluate a leaf of the search
+     * @param state The state of the leaf
+     * @return The expected final scores of the players, indexed by color ordinal
+     */
+    private double[] evaluate(SearchState state) {
+        return state.expectedFinalScores();
+    }
+}
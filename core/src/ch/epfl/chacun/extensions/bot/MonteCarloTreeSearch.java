@@ -0,0 +1,479 @@
+package ch.epfl.chacun.extensions.bot;
+
+import ch.epfl.chacun.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.random.RandomGenerator;
+
+/**
+ * Represents a Monte Carlo tree search engine choosing the action of the current player within a time budget,
+ * using the UCT selection rule and playouts played until the end of the game on a {@link SearchState}
+ * <p>
+ * The future draws are unknown to the players, so each iteration samples an order of the remaining tiles of the
+ * decks before descending the tree, and the nodes are shared by all the samples: an action that is only legal in
+ * some samples is selected with respect to the number of times it was available rather than to the number of
+ * visits of its parent
+ * <p>
+ * The iterations are spread across several threads using root parallelisation, each thread growing its own tree
+ * from the same state, the visits of the actions of the roots being summed at the end of the search
+ * <p>
+ * The trees are kept after each search, and the next search or pondering promotes the subtrees reached by the
+ * actions played in the meantime to be its roots, so that the playouts run on the previous turns, and while the
+ * other players were choosing their actions, are not lost
+ * @author Adam Bekkar (379476)
+ */
+public final class MonteCarloTreeSearch {
+    /** The default exploration constant of the UCT selection rule */
+    public static final double DEFAULT_EXPLORATION = Math.sqrt(2);
+    /** The number of playouts of the trees after which pondering stops, bounding the memory they use */
+    private static final int MAX_PONDER_PLAYOUTS = 1 << 19;
+    /** The maximum number of actions between the roots of the kept trees and the state of a new search */
+    private static final int MAX_PROMOTION_DEPTH = 16;
+    /** The minimum number of playouts run by a search on a tree before it measures its rate to stop early */
+    private static final int MIN_RATE_PLAYOUTS = 32;
+
+    /** The time given to each search */
+    private final Duration timeBudget;
+    /** The number of threads running the iterations */
+    private final int parallelism;
+    /** The exploration constant of the UCT selection rule */
+    private final double exploration;
+    /** The statistics of the last search */
+    private volatile Statistics lastStatistics = new Statistics(0, 0, Duration.ZERO);
+    /** Whether the search run within the time budget of the engine has been cancelled */
+    private volatile boolean cancelled;
+
+    /** The roots of the trees kept from the last search or pondering, one per thread */
+    private List<Node> keptRoots = List.of();
+    /** The state of the roots of the kept trees, or null if there are none */
+    private GameState keptGameState;
+
+    /**
+     * Represents the statistics of a search
+     * @param playouts The number of playouts run
+     * @param reusedPlayouts The number of playouts of the promoted trees through the actions of the root
+     * @param elapsed The time taken by the search
+     */
+    public record Statistics(long playouts, long reusedPlayouts, Duration elapsed) {
+        /**
+         * Used to get the number of playouts run per second
+         * @return The number of playouts per second, or 0 if no time has elapsed
+         */
+        public double playoutsPerSecond() {
+            return elapsed.isZero() ? 0 : playouts * 1e9 / elapsed.toNanos();
+        }
+    }
+
+    /**
+     * Represents a node of the tree, reached by applying an action to the state of its parent
+     * @author Adam Bekkar (379476)
+     */
+    private static final class Node {
+        /** The parent of the node, or null for the root, which is detached from its parent when promoted */
+        private Node parent;
+        /** The action leading to the node: a placed tile, an occupant, or null for no occupant */
+        private final Object action;
+        /** The ordinal of the color of the player that applied the action */
+        private final int player;
+        /** The children of the node, indexed by their action */
+        private final Map<Object, Node> children = new HashMap<>();
+        /** The number of iterations that went through the node */
+        private int visits;
+        /** The number of iterations in which the action of the node was legal when its parent was reached */
+        private int availability;
+        /** The sum of the rewards of the player that applied the action over the iterations */
+        private double reward;
+
+        /**
+         * Used to create a node
+         * @param parent The parent of the node, or null for the root
+         * @param action The action leading to the node
+         * @param player The ordinal of the color of the player that applied the action
+         */
+        private Node(Node parent, Object action, int player) {
+            this.parent = parent;
+            this.action = action;
+            this.player = player;
+        }
+    }
+
+    /**
+     * Used to create an engine using all the available processors and the default exploration constant
+     * @param timeBudget The time given to each search
+     */
+    public MonteCarloTreeSearch(Duration timeBudget) {
+        this(timeBudget, Runtime.getRuntime().availableProcessors(), DEFAULT_EXPLORATION);
+    }
+
+    /**
+     * Used to create an engine
+     * @param timeBudget The time given to each search
+     * @param parallelism The number of threads running the iterations
+     * @param exploration The exploration constant of the UCT selection rule
+     * @throws IllegalArgumentException If the time budget is not positive, the parallelism is not positive
+     * or the exploration constant is negative
+     */
+    public MonteCarloTreeSearch(Duration timeBudget, int parallelism, double exploration) {
+        Preconditions.checkArgument(timeBudget.isPositive() && parallelism > 0 && exploration >= 0);
+        this.timeBudget = timeBudget;
+        this.parallelism = parallelism;
+        this.exploration = exploration;
+    }
+
+    /**
+     * Used to get the statistics of the last search
+     * @return The statistics of the last search
+     */
+    public Statistics lastStatistics() {
+        return lastStatistics;
+    }
+
+    /**
+     * Used to cancel the search run within the time budget of the engine, if any, which then returns the best
+     * action found so far
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Used to search the best action of the current player within the time budget of the engine and apply it to
+     * the given state, the engine running one search or pondering at a time
+     * @param gameState The state of the game
+     * @return The state reached by applying the best action found, and the encoded action
+     * @throws IllegalArgumentException If the game has not started or is over
+     */
+    public ActionEncoder.StateAction search(GameState gameState) {
+        cancelled = false;
+        return search(gameState, System.nanoTime() + timeBudget.toNanos(), () -> cancelled);
+    }
+
+    /**
+     * Used to search the best action of the current player until the given deadline and apply it to the given
+     * state, the engine running one search or pondering at a time
+     * <p>
+     * The search starts from the kept trees when the given state can be reached from their roots. A tree stops
+     * growing before the deadline once the time its reused playouts through the actions of the current player
+     * are worth, at the rate of playouts measured on it during this search, covers the time left, so that it
+     * holds as many playouts as a tree grown from scratch until the deadline. Without reused playouts, the
+     * search runs until the deadline
+     * @param gameState The state of the game
+     * @param deadline The deadline of the search, as given by {@link System#nanoTime()}
+     * @param cancelled The condition telling if the search has been cancelled, which is never reset by the engine
+     * @return The state reached by applying the best action found, and the encoded action
+     * @throws IllegalArgumentException If the game has not started or is over
+     */
+    public ActionEncoder.StateAction search(GameState gameState, long deadline, BooleanSupplier cancelled) {
+        Preconditions.checkArgument(gameState.nextAction() != GameState.Action.START_GAME
+                && gameState.nextAction() != GameState.Action.END_GAME);
+        long start = System.nanoTime();
+
+        // Do not search when there is no choice to make
+        List<Object> actions = SearchActions.actionsOf(new SearchState(gameState));
+        if (actions.size() == 1) {
+            lastStatistics = new Statistics(0, 0, Duration.ofNanos(System.nanoTime() - start));
+            return SearchActions.apply(gameState, actions.getFirst());
+        }
+
+        List<Node> roots = promote(gameState);
+        Map<Node, Long> reusedVisits = new IdentityHashMap<>();
+        for (Node root : roots) reusedVisits.put(root, visitsOf(actions, root));
+        long reusedPlayouts = reusedVisits.values().stream().mapToLong(Long::longValue).sum();
+        long visitsBefore = roots.stream().mapToLong(r -> r.visits).sum();
+        long growthStart = System.nanoTime();
+        try {
+            growAll(gameState, roots, root -> {
+                long now = System.nanoTime();
+                if (cancelled.getAsBoolean() || now - deadline >= 0) return true;
+
+                // Stop once the reused playouts, at the rate measured during this search, cover the time left
+                long reused = reusedVisits.get(root);
+                long grown = visitsOf(actions, root) - reused;
+                return reused > 0 && grown >= MIN_RATE_PLAYOUTS
+                        && (double) reused * (now - growthStart) >= (double) grown * (deadline - now);
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+        keep(gameState, roots);
+
+        long playouts = roots.stream().mapToLong(r -> r.visits).sum() - visitsBefore;
+        lastStatistics = new Statistics(playouts, reusedPlayouts, Duration.ofNanos(System.nanoTime() - start));
+        return SearchActions.apply(gameState, bestAction(actions, roots));
+    }
+
+    /**
+     * Used to grow the trees from the given state while the other players choose their actions, so that the
+     * next search reuses them, the engine running one search or pondering at a time
+     * <p>
+     * Pondering stops when the given condition holds, when the thread running it is interrupted, or when the
+     * trees reach MAX_PONDER_PLAYOUTS playouts
+     * @param gameState The state of the game, reached by the last action played
+     * @param stopped The condition telling when to stop pondering
+     * @throws IllegalArgumentException If the game has not started or is over
+     */
+    public void ponder(GameState gameState, BooleanSupplier stopped) {
+        Preconditions.checkArgument(gameState.nextAction() != GameState.Action.START_GAME
+                && gameState.nextAction() != GameState.Action.END_GAME);
+
+        List<Node> roots = promote(gameState);
+        try {
+            growAll(gameState, roots,
+                    root -> stopped.getAsBoolean() || root.visits >= MAX_PONDER_PLAYOUTS / parallelism);
+        } catch (InterruptedException e) {
+            // The trees are left consistent once the threads growing them have stopped
+            Thread.currentThread().interrupt();
+        }
+        keep(gameState, roots);
+    }
+
+    /**
+     * Used to get the roots of the trees of a search from the given state, promoting the nodes of the kept trees
+     * reached by the actions played since their roots, or creating new roots when the state cannot be reached
+     * @param gameState The state of the game
+     * @return The roots of the trees, one per thread
+     */
+    private List<Node> promote(GameState gameState) {
+        SearchState keptState = Objects.nonNull(keptGameState) ? new SearchState(keptGameState) : null;
+        List<Node> roots = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            Node root = i < keptRoots.size()
+                    ? find(keptState, keptRoots.get(i), gameState, MAX_PROMOTION_DEPTH) : null;
+            if (Objects.isNull(root)) root = new Node(null, null, -1);
+            // Detach the root so that the rest of the kept tree can be collected
+            root.parent = null;
+            roots.add(root);
+        }
+        keptRoots = List.of();
+        keptGameState = null;
+        return roots;
+    }
+
+    /**
+     * Used to keep the given trees for the next search or pondering
+     * @param gameState The state of the roots of the trees
+     * @param roots The roots of the trees
+     */
+    private void keep(GameState gameState, List<Node> roots) {
+        keptRoots = List.copyOf(roots);
+        keptGameState = gameState;
+    }
+
+    /**
+     * Used to find the node of the given tree whose state is the given state of the game, following only the
+     * placements that are on its board
+     * @param state The state of the given node, which is restored before returning
+     * @param node The node
+     * @param gameState The state of the game to find
+     * @param depth The maximum number of actions between the node and the state to find
+     * @return The node whose state is the given one, or null if there is none
+     */
+    private static Node find(SearchState state, Node node, GameState gameState, int depth) {
+        if (state.zobristHash() == gameState.zobristHash() && state.matches(gameState)) return node;
+        if (depth == 0 || state.nextAction() == GameState.Action.END_GAME) return null;
+
+        for (Node child : node.children.values()) {
+            if (state.nextAction() == GameState.Action.PLACE_TILE && !isPlaced((PlacedTile) child.action,
+                    state.tileToPlace(), gameState.board())) continue;
+            SearchActions.apply(state, child.action);
+            Node found = find(state, child, gameState, depth - 1);
+            state.undo();
+            if (Objects.nonNull(found)) return found;
+        }
+        return null;
+    }
+
+    /**
+     * Used to check if the given placement of the given tile to place is on the given board
+     * @param placedTile The placement, which may have been expanded for another tile drawn in another sample
+     * @param tileToPlace The tile to place
+     * @param board The board
+     * @return True if the placement is the one of the tile to place on the board, false otherwise
+     */
+    private static boolean isPlaced(PlacedTile placedTile, Tile tileToPlace, Board board) {
+        PlacedTile boardTile = board.tileAt(placedTile.pos());
+        return placedTile.tile().equals(tileToPlace) && Objects.nonNull(boardTile)
+                && boardTile.withNoOccupant().equals(placedTile);
+    }
+
+    /**
+     * Used to get the number of playouts of the given tree through the given actions of its root
+     * @param actions The actions of the root
+     * @param root The root of the tree
+     * @return The number of playouts through the actions
+     */
+    private static long visitsOf(List<Object> actions, Node root) {
+        long visits = 0;
+        for (Object action : actions) {
+            Node child = root.children.get(action);
+            if (Objects.nonNull(child)) visits += child.visits;
+        }
+        return visits;
+    }
+
+    /**
+     * Used to grow the given trees from the given state, one per thread, until the given condition holds
+     * @param gameState The state of the roots of the trees
+     * @param roots The roots of the trees
+     * @param stop The condition telling when to stop growing a tree, given its root
+     * @throws InterruptedException If the calling thread is interrupted, the threads growing the trees being
+     * stopped before throwing
+     */
+    private void growAll(GameState gameState, List<Node> roots, Predicate<Node> stop) throws InterruptedException {
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+            List<Future<?>> futures = new ArrayList<>(parallelism);
+            for (Node root : roots) {
+                RandomGenerator random = new SplittableRandom(ThreadLocalRandom.current().nextLong());
+                futures.add(executor.submit(() -> grow(root, new SearchState(gameState), stop, random)));
+            }
+            for (Future<?> future : futures) future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Used to grow the given tree from the given state until the given condition holds
+     * @param root The root of the tree
+     * @param state The state of the root, which is restored after each iteration
+     * @param stop The condition telling when to stop growing the tree, given its root
+     * @param random The random generator used to sample the draws and to play out the games
+     */
+    private void grow(Node root, SearchState state, Predicate<Node> stop, RandomGenerator random) {
+        while (!stop.test(root) && !Thread.currentThread().isInterrupted()) {
+            state.shuffleRemainingTiles(random);
+            Node node = select(root, state, random);
+            while (state.nextAction() != GameState.Action.END_GAME) applyRandomAction(state, random);
+
+            double[] rewards = rewards(state);
+            for (Node n = node; Objects.nonNull(n); n = n.parent) {
+                n.visits++;
+                if (Objects.nonNull(n.parent)) n.reward += rewards[n.player];
+            }
+            while (state.depth() > 0) state.undo();
+        }
+    }
+
+    /**
+     * Used to descend the tree from the given root, applying the actions of the nodes to the given state,
+     * until a node is expanded or the game ends
+     * @param root The root of the tree
+     * @param state The state of the root
+     * @param random The random generator used to choose the action to expand
+     * @return The last node reached
+     */
+    private Node select(Node root, SearchState state, RandomGenerator random) {
+        Node node = root;
+        while (state.nextAction() != GameState.Action.END_GAME) {
+            List<Object> actions = SearchActions.actionsOf(state);
+            List<Object> unexpanded = new ArrayList<>();
+            Node best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (Object action : actions) {
+                Node child = node.children.get(action);
+                if (Objects.isNull(child)) {
+                    unexpanded.add(action);
+                    continue;
+                }
+                child.availability++;
+                double value = child.reward / child.visits
+                        + exploration * Math.sqrt(Math.log(child.availability) / child.visits);
+                if (value > bestValue) {
+                    best = child;
+                    bestValue = value;
+                }
+            }
+
+            // Expand one of the actions that have never been tried, if any
+            if (!unexpanded.isEmpty()) {
+                Object action = unexpanded.get(random.nextInt(unexpanded.size()));
+                Node child = new Node(node, action, state.currentPlayer().ordinal());
+                child.availability = 1;
+                node.children.put(action, child);
+                SearchActions.apply(state, action);
+                return child;
+            }
+
+            SearchActions.apply(state, best.action);
+            node = best;
+        }
+        return node;
+    }
+
+    /**
+     * Used to get the action with the most visits over all the trees, the ties being broken by the reward
+     * @param actions The actions of the root, in a fixed order
+     * @param roots The roots of the trees
+     * @return The best action
+     */
+    private static Object bestAction(List<Object> actions, List<Node> roots) {
+        Object bestAction = actions.getFirst();
+        long bestVisits = -1;
+        double bestReward = Double.NEGATIVE_INFINITY;
+        for (Object action : actions) {
+            long visits = 0;
+            double reward = 0;
+            for (Node root : roots) {
+                Node child = root.children.get(action);
+                if (Objects.isNull(child)) continue;
+                visits += child.visits;
+                reward += child.reward;
+            }
+            if (visits > bestVisits || visits == bestVisits && reward > bestReward) {
+                bestAction = action;
+                bestVisits = visits;
+                bestReward = reward;
+            }
+        }
+        return bestAction;
+    }
+
+    /**
+     * Used to apply a random action of the playout policy to the given state: a random placement, a random
+     * occupant or none with the same probability, and no pawn taken back since it rarely pays off
+     * @param state The state
+     * @param random The random generator
+     */
+    private static void applyRandomAction(SearchState state, RandomGenerator random) {
+        switch (state.nextAction()) {
+            case PLACE_TILE -> {
+                List<PlacedTile> placements = state.legalPlacements();
+                state.placeTile(placements.get(random.nextInt(placements.size())));
+            }
+            case OCCUPY_TILE -> {
+                List<Occupant> occupants = state.potentialOccupants();
+                int index = random.nextInt(occupants.size() + 1);
+                state.occupy(index < occupants.size() ? occupants.get(index) : null);
+            }
+            case RETAKE_PAWN -> state.retakePawn(null);
+            case START_GAME, END_GAME -> throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Used to get the rewards of the players at the end of a game, the winners sharing a reward of 1
+     * @param state The state at the end of the game
+     * @return The rewards of the players, indexed by color ordinal
+     */
+    private static double[] rewards(SearchState state) {
+        int maxPoints = Integer.MIN_VALUE;
+        int winnerCount = 0;
+        for (PlayerColor player : state.players()) {
+            int points = state.points(player);
+            if (points > maxPoints) {
+                maxPoints = points;
+                winnerCount = 1;
+            } else if (points == maxPoints) winnerCount++;
+        }
+
+        double[] rewards = new double[PlayerColor.ALL.size()];
+        for (PlayerColor player : state.players())
+            if (state.points(player) == maxPoints) rewards[player.ordinal()] = 1.0 / winnerCount;
+        return rewards;
+    }
+}
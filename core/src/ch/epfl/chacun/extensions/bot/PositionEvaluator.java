@@ -0,0 +1,176 @@
+package ch.epfl.chacun.extensions.bot;
+
+import ch.epfl.chacun.*;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Used to estimate the final score of each player from a position, without playing any action, by adding to the
+ * points of the player the points the areas they control are expected to bring and the value of their free
+ * occupants
+ * <p>
+ * The open forests and rivers are scored as if they were closed, weighted by the probability that they will be,
+ * which decreases with their open connections and vanishes when the deck runs out. The meadows and the river
+ * systems are scored as they would be at the end of the game, the prey eaten by the tigers being removed. Each
+ * free occupant is worth a fixed number of points, as long as its player has turns left to place it
+ * <p>
+ * The features are read from the areas of the zone partitions, which are shared by the successive boards, and the
+ * value of each area only depends on its own features, so that the estimate is cheap enough for the leaves of a
+ * search. The same model is applied to a {@link SearchState} by {@link SearchState#expectedFinalScores()}
+ * @author Adam Bekkar (379476)
+ */
+public final class PositionEvaluator {
+    /** The factor by which each open connection of an area reduces the probability that it will be closed */
+    private static final double CLOSING_FACTOR = 0.7;
+    /** The points a free pawn is expected to bring when its player has turns left to place it */
+    private static final double FREE_PAWN_VALUE = 2;
+    /** The points a free hut is expected to bring when its player has turns left to place it */
+    private static final double FREE_HUT_VALUE = 1;
+
+    /** Private constructor to prevent instantiation */
+    private PositionEvaluator() {}
+
+    /**
+     * Used to estimate the final score of each player from the given state of the game, the final scores being
+     * exact at the end of the game
+     * @param gameState The state of the game
+     * @return The expected final score of each player of the game
+     */
+    public static Map<PlayerColor, Double> expectedFinalScores(GameState gameState) {
+        if (gameState.nextAction() == GameState.Action.END_GAME)
+            return gameState.players().stream().collect(Collectors.toMap(Function.identity(),
+                    player -> (double) gameState.messageBoard().points().getOrDefault(player, 0)));
+
+        Board board = gameState.board();
+        int tilesLeft = gameState.tileDecks().deckSize(Tile.Kind.NORMAL);
+        int turnsLeft = turnsLeft(tilesLeft, gameState.players().size());
+
+        Map<PlayerColor, Double> scores = new HashMap<>();
+        for (PlayerColor player : gameState.players())
+            scores.put(player, gameState.messageBoard().points().getOrDefault(player, 0) + freeOccupantsValue(
+                    gameState.freeOccupantsCount(player, Occupant.Kind.PAWN),
+                    gameState.freeOccupantsCount(player, Occupant.Kind.HUT), turnsLeft));
+
+        for (Area<Zone.Forest> forest : board.forestAreas())
+            if (forest.isOccupied() && !forest.isClosed())
+                addToMajority(scores, forest, openForestValue(forest.tileCount(), Area.mushroomGroupCount(forest),
+                        forest.openConnections(), tilesLeft));
+
+        for (Area<Zone.River> river : board.riverAreas())
+            if (river.isOccupied() && !river.isClosed())
+                addToMajority(scores, river, openRiverValue(river.tileCount(), Area.riverFishCount(river),
+                        river.openConnections(), tilesLeft));
+
+        for (Area<Zone.Meadow> meadow : board.meadowAreas()) {
+            if (!meadow.isOccupied()) continue;
+            Map<Animal.Kind, Integer> counts = Area.animalCounts(meadow, board.cancelledAnimals());
+            addToMajority(scores, meadow, meadowValue(counts.getOrDefault(Animal.Kind.MAMMOTH, 0),
+                    counts.getOrDefault(Animal.Kind.AUROCHS, 0), counts.getOrDefault(Animal.Kind.DEER, 0),
+                    counts.getOrDefault(Animal.Kind.TIGER, 0)));
+        }
+
+        for (Area<Zone.Water> riverSystem : board.riverSystemAreas())
+            if (riverSystem.isOccupied())
+                addToMajority(scores, riverSystem, riverSystemValue(Area.riverSystemFishCount(riverSystem),
+                        Area.lakeCount(riverSystem),
+                        Objects.nonNull(riverSystem.zoneWithSpecialPower(Zone.SpecialPower.RAFT))));
+        return scores;
+    }
+
+    /**
+     * Used to add the given value to the scores of the majority occupants of the given area
+     * @param scores The scores of the players
+     * @param area The area
+     * @param value The value of the area
+     */
+    private static void addToMajority(Map<PlayerColor, Double> scores, Area<?> area, double value) {
+        if (value <= 0) return;
+        for (PlayerColor player : area.majorityOccupants()) scores.merge(player, value, Double::sum);
+    }
+
+    /**
+     * Used to get the number of turns each player has left, the last ones being given to the first players
+     * @param tilesLeft The number of normal tiles left
+     * @param playerCount The number of players
+     * @return The number of turns left of each player, rounded up
+     */
+    static int turnsLeft(int tilesLeft, int playerCount) {
+        return (tilesLeft + playerCount - 1) / playerCount;
+    }
+
+    /**
+     * Used to get the probability that an open forest or river will be closed before the end of the game
+     * @param openConnections The number of open connections of the area
+     * @param tilesLeft The number of normal tiles left
+     * @return The probability that the area will be closed
+     */
+    static double closingProbability(int openConnections, int tilesLeft) {
+        if (tilesLeft == 0) return 0;
+        return Math.pow(CLOSING_FACTOR, openConnections) * Math.min(1, (double) tilesLeft / openConnections);
+    }
+
+    /**
+     * Used to get the expected value of an open forest for its majority occupants
+     * @param tileCount The number of tiles of the forest
+     * @param mushroomGroupCount The number of mushroom groups of the forest
+     * @param openConnections The number of open connections of the forest
+     * @param tilesLeft The number of normal tiles left
+     * @return The expected value of the forest
+     */
+    static double openForestValue(int tileCount, int mushroomGroupCount, int openConnections, int tilesLeft) {
+        // Closing an open area adds at least one tile to it
+        return closingProbability(openConnections, tilesLeft)
+                * Points.forClosedForest(Math.max(2, tileCount), mushroomGroupCount);
+    }
+
+    /**
+     * Used to get the expected value of an open river for its majority occupants
+     * @param tileCount The number of tiles of the river
+     * @param fishCount The number of fish of the river and of its lakes
+     * @param openConnections The number of open connections of the river
+     * @param tilesLeft The number of normal tiles left
+     * @return The expected value of the river
+     */
+    static double openRiverValue(int tileCount, int fishCount, int openConnections, int tilesLeft) {
+        return closingProbability(openConnections, tilesLeft)
+                * Points.forClosedRiver(Math.max(2, tileCount), fishCount);
+    }
+
+    /**
+     * Used to get the value of a meadow for its majority occupants at the end of the game
+     * @param mammothCount The number of mammoths of the meadow that are not cancelled
+     * @param aurochsCount The number of aurochs of the meadow that are not cancelled
+     * @param deerCount The number of deer of the meadow that are not cancelled
+     * @param tigerCount The number of tigers of the meadow that are not cancelled, each one eating a deer
+     * @return The value of the meadow
+     */
+    static double meadowValue(int mammothCount, int aurochsCount, int deerCount, int tigerCount) {
+        return Points.forMeadow(mammothCount, aurochsCount, Math.max(0, deerCount - tigerCount));
+    }
+
+    /**
+     * Used to get the value of a river system for its majority occupants at the end of the game
+     * @param fishCount The number of fish of the river system
+     * @param lakeCount The number of lakes of the river system
+     * @param hasRaft Whether the river system has the raft
+     * @return The value of the river system
+     */
+    static double riverSystemValue(int fishCount, int lakeCount, boolean hasRaft) {
+        return Points.forRiverSystem(fishCount) + (hasRaft ? Points.forRaft(lakeCount) : 0);
+    }
+
+    /**
+     * Used to get the value of the free occupants of a player
+     * @param freePawns The number of free pawns of the player
+     * @param freeHuts The number of free huts of the player
+     * @param turnsLeft The number of turns the player has left
+     * @return The value of the free occupants that the player can still place
+     */
+    static double freeOccupantsValue(int freePawns, int freeHuts, int turnsLeft) {
+        int pawns = Math.min(freePawns, turnsLeft);
+        int huts = Math.min(freeHuts, turnsLeft - pawns);
+        return pawns * FREE_PAWN_VALUE + huts * FREE_HUT_VALUE;
+    }
+}
@@ -0,0 +1,81 @@
+package ch.epfl.chacun.extensions.bot;
+
+import ch.epfl.chacun.*;
+
+import java.util.*;
+
+/**
+ * Used to enumerate and apply the actions searched by the search engines of the bot, and to compare the values
+ * of the players they lead to
+ * @author Adam Bekkar (379476)
+ */
+final class SearchActions {
+    /** Private constructor to prevent instantiation */
+    private SearchActions() {}
+
+    /**
+     * Used to get the legal actions of the current player in the given state, no occupant being one of them
+     * @param state The state
+     * @return The legal actions, as placed tiles or occupants, null standing for no occupant
+     */
+    static List<Object> actionsOf(SearchState state) {
+        List<Object> actions = new ArrayList<>();
+        switch (state.nextAction()) {
+            case PLACE_TILE -> actions.addAll(state.legalPlacements());
+            case OCCUPY_TILE -> {
+                actions.addAll(state.potentialOccupants());
+                actions.add(null);
+            }
+            case RETAKE_PAWN -> {
+                actions.addAll(state.retakablePawns());
+                actions.add(null);
+            }
+            case START_GAME, END_GAME -> throw new IllegalArgumentException();
+        }
+        return actions;
+    }
+
+    /**
+     * Used to apply the given action to the given state
+     * @param state The state
+     * @param action The action, as returned by {@link #actionsOf(SearchState)}
+     */
+    static void apply(SearchState state, Object action) {
+        switch (state.nextAction()) {
+            case PLACE_TILE -> state.placeTile((PlacedTile) action);
+            case OCCUPY_TILE -> state.occupy((Occupant) action);
+            case RETAKE_PAWN -> state.retakePawn((Occupant) action);
+            case START_GAME, END_GAME -> throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Used to apply the given action to the given state of the game
+     * @param gameState The state of the game
+     * @param action The action, as returned by {@link #actionsOf(SearchState)}
+     * @return The state reached by applying the action, and the encoded action
+     */
+    static ActionEncoder.StateAction apply(GameState gameState, Object action) {
+        return switch (gameState.nextAction()) {
+            case PLACE_TILE -> ActionEncoder.withPlacedTile(gameState, (PlacedTile) action);
+            case OCCUPY_TILE -> ActionEncoder.withNewOccupant(gameState, (Occupant) action);
+            case RETAKE_PAWN -> ActionEncoder.withOccupantRemoved(gameState, (Occupant) action);
+            case START_GAME, END_GAME -> throw new IllegalArgumentException();
+        };
+    }
+
+    /**
+     * Used to get the utility of the given values for the given player, i.e. the difference between the value of
+     * the player and the best value of the other players
+     * @param values The values of the players, indexed by color ordinal
+     * @param player The player
+     * @param players The players of the game
+     * @return The utility of the values for the player
+     */
+    static double utility(double[] values, PlayerColor player, List<PlayerColor> players) {
+        double bestOtherValue = Double.NEGATIVE_INFINITY;
+        for (PlayerColor other : players)
+            if (other != player) bestOtherValue = Math.max(bestOtherValue, values[other.ordinal()]);
+        return values[player.ordinal()] - bestOtherValue;
+    }
+}
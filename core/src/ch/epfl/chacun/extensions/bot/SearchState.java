@@ -0,0 +1,1562 @@
+package ch.epfl.chacun.extensions.bot;
+
+import ch.epfl.chacun.*;
+
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+/**
+ * Represents a mutable state of the game used by the bot to explore the game tree, where every action applied to
+ * the state can be undone exactly, the changes made to the board and to the zone partitions being recorded in an
+ * undo log instead of copying the board as the immutable {@link GameState} does
+ * <p>
+ * The rules applied are the same as the ones of {@link GameState}, and {@link #matches(GameState)} can be used to
+ * check a search state against the game state reached by the same actions
+ * @author Adam Bekkar (379476)
+ */
+public final class SearchState {
+    /** The number of local ids of the zones of a tile */
+    private static final int LOCAL_ID_COUNT = 10;
+    /** The number of animals a zone can have at most */
+    private static final int ANIMALS_PER_ZONE = 10;
+    /** The number of player colors */
+    private static final int COLOR_COUNT = PlayerColor.ALL.size();
+    /** The number of kinds of occupants */
+    private static final int OCCUPANT_KIND_COUNT = Occupant.Kind.values().length;
+    /** The value used for the absence of a tile, an occupant or an index */
+    private static final int NONE = -1;
+    /** The number of scalar values saved before each applied action */
+    private static final int FRAME_SIZE = 6;
+    /** The actions, indexed by ordinal */
+    private static final GameState.Action[] ACTIONS = GameState.Action.values();
+    /** The kinds of occupants, indexed by ordinal */
+    private static final Occupant.Kind[] OCCUPANT_KINDS = Occupant.Kind.values();
+
+    /** The index of the forest partition */
+    private static final int FORESTS = 0;
+    /** The index of the meadow partition */
+    private static final int MEADOWS = 1;
+    /** The index of the river partition */
+    private static final int RIVERS = 2;
+    /** The index of the river system partition */
+    private static final int RIVER_SYSTEMS = 3;
+    /** The number of partitions */
+    private static final int PARTITION_COUNT = 4;
+
+    /** The translation along the x-axis to the neighbour in each direction, indexed by direction ordinal */
+    private static final int[] NEIGHBOUR_DX = { 0, 1, 0, -1 };
+    /** The translation along the y-axis to the neighbour in each direction, indexed by direction ordinal */
+    private static final int[] NEIGHBOUR_DY = { -1, 0, 1, 0 };
+
+    /** The operations recorded in the undo log, each one followed in the log by its arguments */
+    private static final int OP_PLACE = 0, OP_FRINGE_ADD = 1, OP_FRINGE_REMOVE = 2, OP_UNION = 3,
+            OP_OPEN_CONNECTIONS = 4, OP_AREA_OCCUPANTS = 5, OP_OCCUPANT = 6, OP_CANCEL = 7, OP_POINTS = 8, OP_ZONE = 9;
+
+    /** The number of zone ids, i.e. the number of tile ids times the number of local ids */
+    private static final int ZONE_ID_COUNT;
+    /** The zones of the tiles of the game, indexed by zone id */
+    private static final Zone[] ZONES;
+    /** The ids of the zones of each tile, indexed by tile id */
+    private static final int[][] TILE_ZONE_IDS;
+    /** The number of open connections of each zone when its tile is placed, indexed by partition and zone id */
+    private static final int[][] INITIAL_OPEN_CONNECTIONS;
+
+    static {
+        int tileIdCount = 0;
+        for (Tile tile : Tiles.TILES) tileIdCount = Math.max(tileIdCount, tile.id() + 1);
+        ZONE_ID_COUNT = tileIdCount * LOCAL_ID_COUNT;
+        ZONES = new Zone[ZONE_ID_COUNT];
+        TILE_ZONE_IDS = new int[tileIdCount][];
+        INITIAL_OPEN_CONNECTIONS = new int[PARTITION_COUNT][ZONE_ID_COUNT];
+
+        for (Tile tile : Tiles.TILES) {
+            // Count the open connections the same way as the zone partitions, the rivers connected to a lake
+            // having an additional one in the river systems, as does the lake they are connected to
+            for (TileSide side : tile.sides())
+                for (Zone zone : side.zones()) {
+                    ZONES[zone.id()] = zone;
+                    int partition = partitionOf(zone);
+                    INITIAL_OPEN_CONNECTIONS[partition][zone.id()]++;
+                    if (zone instanceof Zone.River river) {
+                        INITIAL_OPEN_CONNECTIONS[RIVER_SYSTEMS][river.id()]++;
+                        if (river.hasLake()) {
+                            ZONES[river.lake().id()] = river.lake();
+                            INITIAL_OPEN_CONNECTIONS[RIVER_SYSTEMS][river.id()]++;
+                            INITIAL_OPEN_CONNECTIONS[RIVER_SYSTEMS][river.lake().id()]++;
+                        }
+                    }
+                }
+            TILE_ZONE_IDS[tile.id()] = tile.zones().stream().mapToInt(Zone::id).sorted().toArray();
+        }
+    }
+
+    /** The number of tiles that separate the center of the board from one edge */
+    private final int reach;
+    /** The number of tiles per row */
+    private final int tilesPerSide;
+
+    /** The players in the order they play */
+    private final PlayerColor[] players;
+    /** The normal tiles of the decks, the ones before normalIndex being drawn */
+    private final Tile[] normalTiles;
+    /** The menhir tiles of the decks, the ones before menhirIndex being drawn */
+    private final Tile[] menhirTiles;
+
+    /** The placed tiles, without their occupant, indexed by slot */
+    private final PlacedTile[] placedTiles;
+    /** The packed encoding of the kinds of the sides of the tile at each slot, only valid for the placed tiles */
+    private final int[] sideKindsBySlot;
+    /** The slot of each placed tile, indexed by tile id, or NONE */
+    private final int[] slotByTileId;
+    /** The kind of the occupant of the tile at each slot, as an ordinal, or NONE */
+    private final int[] occupantKinds;
+    /** The id of the zone occupied by the occupant of the tile at each slot */
+    private final int[] occupantZoneIds;
+    /** The number of occupants of each player and kind on the board, indexed by occupantCountIndex */
+    private final int[] occupantCounts = new int[COLOR_COUNT * OCCUPANT_KIND_COUNT];
+    /** The slots where a tile can be inserted, the first fringeSize ones being valid */
+    private final int[] fringe;
+    /** The index of each slot in the fringe, or NONE if the slot is not in the fringe */
+    private final int[] fringeIndex;
+    /** The number of slots in the fringe */
+    private int fringeSize;
+    /** Whether each animal is cancelled, indexed by animal id */
+    private final boolean[] cancelledAnimals = new boolean[ZONE_ID_COUNT * ANIMALS_PER_ZONE];
+    /** The points of each player, indexed by color ordinal */
+    private final int[] points = new int[COLOR_COUNT];
+    /** The Zobrist hash of the placed tiles, the occupants and the cancelled animals, like the one of the board */
+    private long boardHash;
+
+    /** The parent of each zone in the union-find forest of each partition, a root being its own parent */
+    private final int[][] parents = new int[PARTITION_COUNT][ZONE_ID_COUNT];
+    /** The number of zones of the area of each root of each partition */
+    private final int[][] sizes = new int[PARTITION_COUNT][ZONE_ID_COUNT];
+    /** The number of open connections of the area of each root of each partition */
+    private final int[][] openConnections = new int[PARTITION_COUNT][ZONE_ID_COUNT];
+    /** The next zone of the circular list of the zones of each area of each partition */
+    private final int[][] nextZones = new int[PARTITION_COUNT][ZONE_ID_COUNT];
+    /** The number of occupants of each player in the area of each root of each partition */
+    private final int[][] areaOccupants = new int[PARTITION_COUNT][ZONE_ID_COUNT * COLOR_COUNT];
+
+    /** The marks used to count the distinct tiles and zones of an area, indexed by tile id or zone id */
+    private final int[] tileMarks, zoneMarks;
+    /** The current value of the marks */
+    private int mark;
+
+    /** The next action to be taken by the current player */
+    private GameState.Action nextAction;
+    /** The tile to place, or null */
+    private Tile tileToPlace;
+    /** The index of the current player in players */
+    private int currentPlayerIndex;
+    /** The number of normal and menhir tiles drawn */
+    private int normalIndex, menhirIndex;
+    /** The slot of the last placed tile, or NONE */
+    private int lastSlot;
+
+    /** The undo log, made of the operations and their arguments */
+    private int[] log = new int[1024];
+    /** The number of entries of the undo log */
+    private int logSize;
+    /** The saved scalar values of the state before each applied action, FRAME_SIZE entries per action */
+    private int[] frames = new int[64 * FRAME_SIZE];
+    /** The tile to place before each applied action */
+    private Tile[] frameTiles = new Tile[64];
+    /** The number of applied actions that can be undone */
+    private int depth;
+
+    /**
+     * Used to create a search state equal to the given state of the game
+     * @param gameState The state of the game
+     * @throws IllegalArgumentException If the game has not started yet
+     */
+    public SearchState(GameState gameState) {
+        Preconditions.checkArgument(gameState.nextAction() != GameState.Action.START_GAME);
+        reach = Board.REACH;
+        tilesPerSide = 2 * reach + 1;
+        int slotCount = tilesPerSide * tilesPerSide;
+
+        players = gameState.players().toArray(PlayerColor[]::new);
+        normalTiles = gameState.tileDecks().normalTiles().toArray(Tile[]::new);
+        menhirTiles = gameState.tileDecks().menhirTiles().toArray(Tile[]::new);
+
+        placedTiles = new PlacedTile[slotCount];
+        sideKindsBySlot = new int[slotCount];
+        slotByTileId = new int[TILE_ZONE_IDS.length];
+        occupantKinds = new int[slotCount];
+        occupantZoneIds = new int[slotCount];
+        fringe = new int[slotCount];
+        fringeIndex = new int[slotCount];
+        tileMarks = new int[TILE_ZONE_IDS.length];
+        zoneMarks = new int[ZONE_ID_COUNT];
+        Arrays.fill(slotByTileId, NONE);
+        Arrays.fill(occupantKinds, NONE);
+        Arrays.fill(fringeIndex, NONE);
+
+        // Add the tiles in any order, since the areas and the fringe do not depend on it
+        Board board = gameState.board();
+        for (int y = -reach; y <= reach; y++)
+            for (int x = -reach; x <= reach; x++) {
+                PlacedTile placedTile = board.tileAt(new Pos(x, y));
+                if (Objects.nonNull(placedTile)) addTile(placedTile.withNoOccupant());
+            }
+        for (Occupant occupant : board.occupants()) addOccupant(occupant);
+        for (Animal animal : board.cancelledAnimals()) {
+            cancelledAnimals[animal.id()] = true;
+            boardHash ^= Zobrist.cancelledAnimalKey(animal.id());
+        }
+        gameState.messageBoard().points().forEach((c, p) -> points[c.ordinal()] = p);
+
+        nextAction = gameState.nextAction();
+        tileToPlace = gameState.tileToPlace();
+        PlacedTile lastPlacedTile = board.lastPlacedTile();
+        lastSlot = Objects.isNull(lastPlacedTile) ? NONE : slotOf(lastPlacedTile.pos());
+        logSize = 0;
+    }
+
+    /**
+     * Used to get the partition of the given zone, the rivers being in the river partition
+     * @param zone The zone
+     * @return The index of the partition of the zone
+     */
+    private static int partitionOf(Zone zone) {
+        return switch (zone) {
+            case Zone.Forest _ -> FORESTS;
+            case Zone.Meadow _ -> MEADOWS;
+            case Zone.River _ -> RIVERS;
+            case Zone.Lake _ -> RIVER_SYSTEMS;
+        };
+    }
+
+    /**
+     * Used to get the partition of the area an occupant of the given kind occupies in the given zone
+     * @param zone The zone of the occupant
+     * @param kind The kind of the occupant
+     * @return The index of the partition, the huts occupying the river systems
+     */
+    private static int partitionOf(Zone zone, Occupant.Kind kind) {
+        return kind == Occupant.Kind.HUT ? RIVER_SYSTEMS : partitionOf(zone);
+    }
+
+    /**
+     * Used to get the next action to be taken by the current player
+     * @return The next action to be taken by the current player
+     */
+    public GameState.Action nextAction() {
+        return nextAction;
+    }
+
+    /**
+     * Used to get the player that is currently playing
+     * @return The player that is currently playing, or null if the game has ended
+     */
+    public PlayerColor currentPlayer() {
+        return nextAction == GameState.Action.END_GAME ? null : players[currentPlayerIndex];
+    }
+
+    /**
+     * Used to get the tile to place
+     * @return The tile to place, or null if no tile is currently being placed
+     */
+    public Tile tileToPlace() {
+        return tileToPlace;
+    }
+
+    /**
+     * Used to get the players in the order they play, the current player being the first one
+     * @return The players in the order they play
+     */
+    public List<PlayerColor> players() {
+        List<PlayerColor> list = new ArrayList<>(players.length);
+        for (int i = 0; i < players.length; i++) list.add(players[(currentPlayerIndex + i) % players.length]);
+        return list;
+    }
+
+    /**
+     * Used to get the points of the given player
+     * @param player The player
+     * @return The points of the player
+     */
+    public int points(PlayerColor player) {
+        return points[player.ordinal()];
+    }
+
+    /**
+     * Used to get the number of tiles left in the deck of the given kind
+     * @param kind The kind of the deck
+     * @return The number of tiles left in the deck
+     */
+    public int deckSize(Tile.Kind kind) {
+        return switch (kind) {
+            case START -> 0;
+            case NORMAL -> normalTiles.length - normalIndex;
+            case MENHIR -> menhirTiles.length - menhirIndex;
+        };
+    }
+
+    /**
+     * Used to get the Zobrist hash of this state, equal to the one of the game state reached by the same actions,
+     * except at the end of the game where the animals cancelled by the final scoring are not tracked
+     * @return The Zobrist hash of this state
+     */
+    public long zobristHash() {
+        return boardHash ^ Zobrist.stateKey(deckSize(Tile.Kind.NORMAL), deckSize(Tile.Kind.MENHIR), tileToPlace,
+                players[currentPlayerIndex], nextAction);
+    }
+
+    /**
+     * Used to get the hash of the tiles that have not been drawn yet, which does not depend on their order
+     * @return The exclusive or of the deck keys of the tiles left in the decks
+     */
+    public long deckHash() {
+        long hash = 0;
+        for (int i = normalIndex; i < normalTiles.length; i++) hash ^= Zobrist.deckTileKey(normalTiles[i].id());
+        for (int i = menhirIndex; i < menhirTiles.length; i++) hash ^= Zobrist.deckTileKey(menhirTiles[i].id());
+        return hash;
+    }
+
+    /**
+     * Used to get the number of free occupants of the given kind of the given player
+     * @param player The player
+     * @param kind The kind of the occupants
+     * @return The number of free occupants of the given kind of the player
+     */
+    public int freeOccupantsCount(PlayerColor player, Occupant.Kind kind) {
+        return Occupant.occupantsCount(kind) - occupantCounts[occupantCountIndex(player, kind)];
+    }
+
+    /**
+     * Used to estimate the final score of each player from this state, with the same model as
+     * {@link PositionEvaluator#expectedFinalScores(GameState)}, the final scores being exact at the end of the game
+     * @return The expected final score of each player, indexed by color ordinal
+     */
+    public double[] expectedFinalScores() {
+        double[] scores = new double[COLOR_COUNT];
+        if (nextAction == GameState.Action.END_GAME) {
+            for (PlayerColor player : players) scores[player.ordinal()] = points[player.ordinal()];
+            return scores;
+        }
+
+        int tilesLeft = deckSize(Tile.Kind.NORMAL);
+        int turnsLeft = PositionEvaluator.turnsLeft(tilesLeft, players.length);
+        for (PlayerColor player : players)
+            scores[player.ordinal()] = points[player.ordinal()] + PositionEvaluator.freeOccupantsValue(
+                    freeOccupantsCount(player, Occupant.Kind.PAWN), freeOccupantsCount(player, Occupant.Kind.HUT),
+                    turnsLeft);
+
+        // Evaluate each occupied area once, from its root
+        for (int slot = 0; slot < placedTiles.length; slot++) {
+            if (Objects.isNull(placedTiles[slot])) continue;
+            for (int zoneId : TILE_ZONE_IDS[placedTiles[slot].id()]) {
+                int partition = partitionOf(ZONES[zoneId]);
+                if (partition != RIVER_SYSTEMS && find(partition, zoneId) == zoneId && isOccupied(partition, zoneId))
+                    addToMajority(scores, partition, zoneId, expectedAreaValue(partition, zoneId, tilesLeft));
+                if (ZONES[zoneId] instanceof Zone.Water && find(RIVER_SYSTEMS, zoneId) == zoneId
+                        && isOccupied(RIVER_SYSTEMS, zoneId))
+                    addToMajority(scores, RIVER_SYSTEMS, zoneId, expectedAreaValue(RIVER_SYSTEMS, zoneId, tilesLeft));
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Used to get the number of applied actions that can be undone
+     * @return The number of applied actions that can be undone
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Used to get the tile placed at the given position, with its occupant
+     * @param pos The position
+     * @return The tile placed at the position, or null if there is none or the position is out of the board
+     */
+    public PlacedTile tileAt(Pos pos) {
+        if (Math.abs(pos.x()) > reach || Math.abs(pos.y()) > reach) return null;
+        return placedTileAt(slotOf(pos));
+    }
+
+    /**
+     * Used to get the last placed tile, with its occupant
+     * @return The last placed tile, or null if there is none
+     */
+    public PlacedTile lastPlacedTile() {
+        return lastSlot == NONE ? null : placedTileAt(lastSlot);
+    }
+
+    /**
+     * Used to get the legal placements of the tile to place by the current player
+     * @return The legal placements of the tile to place, sorted by position and rotation
+     * @throws IllegalArgumentException If the next action is not PLACE_TILE
+     */
+    public List<PlacedTile> legalPlacements() {
+        Preconditions.checkArgument(nextAction == GameState.Action.PLACE_TILE);
+        int[] slots = Arrays.copyOf(fringe, fringeSize);
+        Arrays.sort(slots);
+
+        int[] sideKinds = sideKindsOf(tileToPlace);
+        List<PlacedTile> placements = new ArrayList<>();
+        for (int slot : slots) {
+            int neighbourSideKinds = neighbourSideKinds(slot);
+            for (Rotation r : Rotation.ALL)
+                if (fitsNeighbours(sideKinds[r.ordinal()], neighbourSideKinds))
+                    placements.add(new PlacedTile(tileToPlace, currentPlayer(), r, posOf(slot)));
+        }
+        return placements;
+    }
+
+    /**
+     * Used to get the occupants the current player can place on the last placed tile
+     * @return The occupants that can be placed, sorted by zone id, the pawns first
+     * @throws IllegalArgumentException If the next action is not OCCUPY_TILE
+     */
+    public List<Occupant> potentialOccupants() {
+        Preconditions.checkArgument(nextAction == GameState.Action.OCCUPY_TILE);
+        List<Occupant> occupants = new ArrayList<>();
+        for (int zoneId : TILE_ZONE_IDS[placedTiles[lastSlot].id()])
+            for (Occupant.Kind kind : OCCUPANT_KINDS)
+                if (canOccupy(zoneId, kind)) occupants.add(new Occupant(kind, zoneId));
+        return occupants;
+    }
+
+    /**
+     * Used to get the pawns of the current player that can be taken back
+     * @return The pawns of the current player on the board, sorted by zone id
+     * @throws IllegalArgumentException If the next action is not RETAKE_PAWN
+     */
+    public List<Occupant> retakablePawns() {
+        Preconditions.checkArgument(nextAction == GameState.Action.RETAKE_PAWN);
+        List<Occupant> pawns = new ArrayList<>();
+        for (int slot = 0; slot < placedTiles.length; slot++)
+            if (occupantKinds[slot] == Occupant.Kind.PAWN.ordinal() && placedTiles[slot].placer() == currentPlayer())
+                pawns.add(new Occupant(Occupant.Kind.PAWN, occupantZoneIds[slot]));
+        pawns.sort(Comparator.comparingInt(Occupant::zoneId));
+        return pawns;
+    }
+
+    /**
+     * Used to place a tile on the board, like {@link GameState#withPlacedTile(PlacedTile)}
+     * @param placedTile The tile to place, without occupant
+     * @throws IllegalArgumentException If the next action is not PLACE_TILE or the tile cannot be placed
+     */
+    public void placeTile(PlacedTile placedTile) {
+        Preconditions.checkArgument(nextAction == GameState.Action.PLACE_TILE
+                && Objects.isNull(placedTile.occupant()) && canAddTile(placedTile));
+        pushFrame();
+        addTile(placedTile);
+        lastSlot = slotOf(placedTile.pos());
+        tileToPlace = null;
+
+        // Apply the special power of the tile, if any
+        Zone spZone = placedTile.specialPowerZone();
+        if (Objects.nonNull(spZone)) {
+            switch (spZone.specialPower()) {
+                case LOGBOAT -> addPoints(currentPlayer(), Points.forLogboat(lakeCount(spZone.id())));
+                case HUNTING_TRAP -> scoreHuntingTrap(spZone.id());
+                case SHAMAN -> {
+                    if (occupantCounts[occupantCountIndex(currentPlayer(), Occupant.Kind.PAWN)] > 0) {
+                        nextAction = GameState.Action.RETAKE_PAWN;
+                        return;
+                    }
+                }
+                default -> {}
+            }
+        }
+
+        if (hasPotentialOccupant()) nextAction = GameState.Action.OCCUPY_TILE;
+        else endTurn();
+    }
+
+    /**
+     * Used to take back a pawn, like {@link GameState#withOccupantRemoved(Occupant)}
+     * @param occupant The pawn to take back, or null to take back none
+     * @throws IllegalArgumentException If the next action is not RETAKE_PAWN or the occupant is not a pawn
+     */
+    public void retakePawn(Occupant occupant) {
+        Preconditions.checkArgument(nextAction == GameState.Action.RETAKE_PAWN
+                && (Objects.isNull(occupant) || occupant.kind() == Occupant.Kind.PAWN));
+        pushFrame();
+
+        // Whether the player can occupy the tile is decided before the pawn is taken back, as in GameState
+        boolean canOccupy = hasPotentialOccupant();
+        if (Objects.nonNull(occupant)) removeOccupant(occupant);
+
+        if (canOccupy) nextAction = GameState.Action.OCCUPY_TILE;
+        else endTurn();
+    }
+
+    /**
+     * Used to occupy the last placed tile, like {@link GameState#withNewOccupant(Occupant)}
+     * @param occupant The occupant to place, or null to place none
+     * @throws IllegalArgumentException If the next action is not OCCUPY_TILE
+     */
+    public void occupy(Occupant occupant) {
+        Preconditions.checkArgument(nextAction == GameState.Action.OCCUPY_TILE);
+        pushFrame();
+        if (Objects.nonNull(occupant)) addOccupant(occupant);
+        endTurn();
+    }
+
+    /**
+     * Used to undo the last applied action, restoring exactly the state before it
+     * @throws IllegalArgumentException If there is no action to undo
+     */
+    public void undo() {
+        Preconditions.checkArgument(depth > 0);
+        depth--;
+        int frame = depth * FRAME_SIZE;
+        int logMark = frames[frame];
+        while (logSize > logMark) undoOperation();
+
+        nextAction = ACTIONS[frames[frame + 1]];
+        currentPlayerIndex = frames[frame + 2];
+        normalIndex = frames[frame + 3];
+        menhirIndex = frames[frame + 4];
+        lastSlot = frames[frame + 5];
+        tileToPlace = frameTiles[depth];
+        frameTiles[depth] = null;
+    }
+
+    /**
+     * Used to shuffle the tiles that have not been drawn yet, to sample one of the possible orders of the future
+     * draws, the tiles already drawn being left in place so that the applied actions can still be undone
+     * @param random The random generator used to shuffle the tiles
+     */
+    public void shuffleRemainingTiles(RandomGenerator random) {
+        shuffle(normalTiles, normalIndex, random);
+        shuffle(menhirTiles, menhirIndex, random);
+    }
+
+    /**
+     * Used to get the tiles that could have been drawn instead of the tile to place, i.e. the tile to place and
+     * the tiles of its deck that have not been drawn yet and could be placed on the board
+     * @return The tiles that could be drawn, the tile to place being the first one
+     * @throws IllegalArgumentException If the next action is not PLACE_TILE
+     */
+    public List<Tile> possibleDraws() {
+        Preconditions.checkArgument(nextAction == GameState.Action.PLACE_TILE);
+        boolean menhir = tileToPlace.kind() == Tile.Kind.MENHIR;
+        Tile[] tiles = menhir ? menhirTiles : normalTiles;
+        List<Tile> draws = new ArrayList<>();
+        draws.add(tileToPlace);
+        for (int i = menhir ? menhirIndex : normalIndex; i < tiles.length; i++)
+            if (couldPlaceTile(tiles[i])) draws.add(tiles[i]);
+        return draws;
+    }
+
+    /**
+     * Used to replace the tile to place by a tile of its deck that has not been drawn yet, the tile to place
+     * taking its place in the deck, to explore another of the possible draws
+     * <p>
+     * Like {@link #shuffleRemainingTiles(RandomGenerator)}, this only changes the order of the tiles that are
+     * unknown to the players, so it is not recorded in the undo log
+     * @param tile The tile to place instead, which can be the tile to place itself
+     * @throws IllegalArgumentException If the next action is not PLACE_TILE or the tile is not one of the tiles
+     * of the deck of the tile to place that have not been drawn yet
+     */
+    public void redraw(Tile tile) {
+        Preconditions.checkArgument(nextAction == GameState.Action.PLACE_TILE);
+        if (tile.equals(tileToPlace)) return;
+
+        boolean menhir = tileToPlace.kind() == Tile.Kind.MENHIR;
+        Tile[] tiles = menhir ? menhirTiles : normalTiles;
+        int index = menhir ? menhirIndex : normalIndex;
+        while (index < tiles.length && !tiles[index].equals(tile)) index++;
+        Preconditions.checkArgument(index < tiles.length);
+
+        tiles[index] = tileToPlace;
+        tileToPlace = tile;
+    }
+
+    /**
+     * Used to shuffle the given tiles from the given index, using the Fisher-Yates algorithm
+     * @param tiles The tiles
+     * @param from The index of the first tile to shuffle
+     * @param random The random generator
+     */
+    private static void shuffle(Tile[] tiles, int from, RandomGenerator random) {
+        for (int i = tiles.length - 1; i > from; i--) {
+            int j = from + random.nextInt(i - from + 1);
+            Tile tile = tiles[i];
+            tiles[i] = tiles[j];
+            tiles[j] = tile;
+        }
+    }
+
+    /**
+     * Used to check that this state is equal to the given state of the game, i.e. that the players, the decks,
+     * the tiles and occupants of the board, the areas and the points are the same
+     * @param gameState The state of the game
+     * @return True if this state is equal to the given state of the game, false otherwise
+     */
+    public boolean matches(GameState gameState) {
+        if (nextAction != gameState.nextAction() || !Objects.equals(tileToPlace, gameState.tileToPlace()))
+            return false;
+        if (!players().equals(gameState.players())) return false;
+        for (Tile.Kind kind : List.of(Tile.Kind.NORMAL, Tile.Kind.MENHIR))
+            if (deckSize(kind) != gameState.tileDecks().deckSize(kind)) return false;
+        for (PlayerColor color : PlayerColor.ALL) {
+            if (points(color) != gameState.messageBoard().points().getOrDefault(color, 0)) return false;
+            for (Occupant.Kind kind : Occupant.Kind.values())
+                if (gameState.freeOccupantsCount(color, kind) != freeOccupantsCount(color, kind)) return false;
+        }
+
+        Board board = gameState.board();
+        if (!Objects.equals(lastPlacedTile(), board.lastPlacedTile())) return false;
+        for (int slot = 0; slot < placedTiles.length; slot++) {
+            PlacedTile placedTile = placedTileAt(slot);
+            if (!Objects.equals(placedTile, board.tileAt(posOf(slot)))) return false;
+            if (Objects.nonNull(placedTile) && !areasMatch(placedTile, board)) return false;
+        }
+
+        // The animals cancelled by the final scoring are not tracked
+        if (nextAction == GameState.Action.END_GAME) return true;
+        if (zobristHash() != gameState.zobristHash()) return false;
+        for (Animal animal : board.cancelledAnimals()) if (!cancelledAnimals[animal.id()]) return false;
+        int cancelledCount = 0;
+        for (boolean cancelled : cancelledAnimals) if (cancelled) cancelledCount++;
+        return cancelledCount == board.cancelledAnimals().size();
+    }
+
+    /**
+     * Used to check that the areas containing the zones of the given tile are equal to the ones of the given board
+     * @param placedTile The placed tile
+     * @param board The board
+     * @return True if the areas have the same open connections and occupants, false otherwise
+     */
+    private boolean areasMatch(PlacedTile placedTile, Board board) {
+        for (int zoneId : TILE_ZONE_IDS[placedTile.id()]) {
+            boolean matches = switch (ZONES[zoneId]) {
+                case Zone.Forest forest -> areaMatches(FORESTS, zoneId, board.forestArea(forest));
+                case Zone.Meadow meadow -> areaMatches(MEADOWS, zoneId, board.meadowArea(meadow));
+                case Zone.River river -> areaMatches(RIVERS, zoneId, board.riverArea(river))
+                        && areaMatches(RIVER_SYSTEMS, zoneId, board.riverSystemArea(river));
+                case Zone.Lake lake -> areaMatches(RIVER_SYSTEMS, zoneId, board.riverSystemArea(lake));
+            };
+            if (!matches) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Used to check that the area containing the given zone in the given partition is equal to the given area
+     * @param partition The partition
+     * @param zoneId The id of the zone
+     * @param area The area of the board containing the zone
+     * @return True if the areas have the same zones, open connections and occupants, false otherwise
+     */
+    private boolean areaMatches(int partition, int zoneId, Area<?> area) {
+        int root = find(partition, zoneId);
+        if (sizes[partition][root] != area.zones().size() || openConnections[partition][root] != area.openConnections())
+            return false;
+        for (PlayerColor color : PlayerColor.ALL) {
+            int count = (int) area.occupants().stream().filter(color::equals).count();
+            if (areaOccupants[partition][root * COLOR_COUNT + color.ordinal()] != count) return false;
+        }
+        return true;
+    }
+
+    /** Used to save the scalar values of the state before an action is applied */
+    private void pushFrame() {
+        if ((depth + 1) * FRAME_SIZE > frames.length) {
+            frames = Arrays.copyOf(frames, frames.length * 2);
+            frameTiles = Arrays.copyOf(frameTiles, frameTiles.length * 2);
+        }
+        int frame = depth * FRAME_SIZE;
+        frames[frame] = logSize;
+        frames[frame + 1] = nextAction.ordinal();
+        frames[frame + 2] = currentPlayerIndex;
+        frames[frame + 3] = normalIndex;
+        frames[frame + 4] = menhirIndex;
+        frames[frame + 5] = lastSlot;
+        frameTiles[depth] = tileToPlace;
+        depth++;
+    }
+
+    /**
+     * Used to record an operation and its arguments in the undo log, the operation being the last entry
+     * The arguments are passed separately rather than as varargs so that recording does not allocate
+     * @param operation The operation
+     * @param argumentCount The number of arguments of the operation
+     * @param a1 The first argument, if any
+     * @param a2 The second argument, if any
+     * @param a3 The third argument, if any
+     */
+    private void record(int operation, int argumentCount, int a1, int a2, int a3) {
+        if (logSize + argumentCount + 1 > log.length) log = Arrays.copyOf(log, log.length * 2);
+        if (argumentCount > 0) log[logSize++] = a1;
+        if (argumentCount > 1) log[logSize++] = a2;
+        if (argumentCount > 2) log[logSize++] = a3;
+        log[logSize++] = operation;
+    }
+
+    /** Used to undo the last operation of the undo log */
+    private void undoOperation() {
+        switch (log[--logSize]) {
+            case OP_PLACE -> {
+                int oldSlot = log[--logSize];
+                int slot = log[--logSize];
+                slotByTileId[placedTiles[slot].id()] = oldSlot;
+                boardHash ^= Zobrist.tileKey(placedTiles[slot]);
+                placedTiles[slot] = null;
+            }
+            case OP_FRINGE_ADD -> fringeIndex[fringe[--fringeSize]] = NONE;
+            case OP_FRINGE_REMOVE -> {
+                int index = log[--logSize];
+                int slot = log[--logSize];
+                // Move back to the end the slot that replaced the removed one, unless the removed one was the last
+                if (index < fringeSize) {
+                    fringe[fringeSize] = fringe[index];
+                    fringeIndex[fringe[index]] = fringeSize;
+                }
+                fringeSize++;
+                fringe[index] = slot;
+                fringeIndex[slot] = index;
+            }
+            case OP_UNION -> {
+                int oldOpenConnections = log[--logSize];
+                int child = log[--logSize];
+                int partition = log[--logSize];
+                int root = parents[partition][child];
+                swapNextZones(partition, root, child);
+                for (int c = 0; c < COLOR_COUNT; c++)
+                    areaOccupants[partition][root * COLOR_COUNT + c] -= areaOccupants[partition][child * COLOR_COUNT + c];
+                sizes[partition][root] -= sizes[partition][child];
+                openConnections[partition][root] = oldOpenConnections;
+                parents[partition][child] = child;
+            }
+            case OP_OPEN_CONNECTIONS -> {
+                int oldOpenConnections = log[--logSize];
+                int root = log[--logSize];
+                openConnections[log[--logSize]][root] = oldOpenConnections;
+            }
+            case OP_AREA_OCCUPANTS -> {
+                int delta = log[--logSize];
+                int index = log[--logSize];
+                areaOccupants[log[--logSize]][index] -= delta;
+            }
+            case OP_OCCUPANT -> {
+                int oldZoneId = log[--logSize];
+                int oldKind = log[--logSize];
+                setOccupant(log[--logSize], oldKind, oldZoneId);
+            }
+            case OP_CANCEL -> {
+                int animalId = log[--logSize];
+                cancelledAnimals[animalId] = false;
+                boardHash ^= Zobrist.cancelledAnimalKey(animalId);
+            }
+            case OP_POINTS -> {
+                int delta = log[--logSize];
+                points[log[--logSize]] -= delta;
+            }
+            case OP_ZONE -> {
+                int zoneId = log[--logSize];
+                int partition = log[--logSize];
+                for (int c = COLOR_COUNT - 1; c >= 0; c--) areaOccupants[partition][zoneId * COLOR_COUNT + c] = log[--logSize];
+                nextZones[partition][zoneId] = log[--logSize];
+                openConnections[partition][zoneId] = log[--logSize];
+                sizes[partition][zoneId] = log[--logSize];
+                parents[partition][zoneId] = log[--logSize];
+            }
+            default -> throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Used to add the given tile to the board, its zones to the partitions and to connect them to the neighbours
+     * @param placedTile The tile to add, without occupant
+     */
+    private void addTile(PlacedTile placedTile) {
+        int slot = slotOf(placedTile.pos());
+        // The same tile can be drawn twice, its zones then being shared with the copy already placed
+        boolean duplicate = slotByTileId[placedTile.id()] != NONE;
+        record(OP_PLACE, 2, slot, slotByTileId[placedTile.id()], 0);
+        placedTiles[slot] = placedTile;
+        sideKindsBySlot[slot] = placedTile.sideKinds();
+        slotByTileId[placedTile.id()] = slot;
+        boardHash ^= Zobrist.tileKey(placedTile);
+
+        // Update the fringe: the slot is now occupied and its empty neighbours become insertion positions
+        if (fringeIndex[slot] != NONE) removeFromFringe(slot);
+        for (int d = 0; d < Direction.COUNT; d++) {
+            int neighbour = neighbourSlot(slot, d);
+            if (neighbour != NONE && Objects.isNull(placedTiles[neighbour]) && fringeIndex[neighbour] == NONE) {
+                fringe[fringeSize] = neighbour;
+                fringeIndex[neighbour] = fringeSize++;
+                record(OP_FRINGE_ADD, 0, 0, 0, 0);
+            }
+        }
+
+        // Add the zones of the tile as singleton areas, which need not be undone since they are unreachable
+        // once the tile is removed, unless they belong to a copy of the tile, and connect the rivers to their lakes
+        for (int zoneId : TILE_ZONE_IDS[placedTile.id()]) {
+            Zone zone = ZONES[zoneId];
+            addSingleton(partitionOf(zone), zoneId, duplicate);
+            if (zone instanceof Zone.River) addSingleton(RIVER_SYSTEMS, zoneId, duplicate);
+        }
+        for (int zoneId : TILE_ZONE_IDS[placedTile.id()])
+            if (ZONES[zoneId] instanceof Zone.River river && river.hasLake())
+                union(RIVER_SYSTEMS, river.id(), river.lake().id());
+
+        // Connect the sides of the tile to the sides of its neighbours
+        for (Direction d : Direction.ALL) {
+            int neighbour = neighbourSlot(slot, d.ordinal());
+            if (neighbour == NONE || Objects.isNull(placedTiles[neighbour])) continue;
+            connectSides(placedTile.side(d), placedTiles[neighbour].side(d.opposite()));
+        }
+    }
+
+    /**
+     * Used to remove the given slot from the fringe
+     * @param slot The slot
+     */
+    private void removeFromFringe(int slot) {
+        int index = fringeIndex[slot];
+        int last = fringe[--fringeSize];
+        fringe[index] = last;
+        fringeIndex[last] = index;
+        fringeIndex[slot] = NONE;
+        record(OP_FRINGE_REMOVE, 2, slot, index, 0);
+    }
+
+    /**
+     * Used to add the given zone as a singleton area to the given partition
+     * @param partition The partition
+     * @param zoneId The id of the zone
+     * @param recorded Whether the previous state of the zone must be recorded in the undo log
+     */
+    private void addSingleton(int partition, int zoneId, boolean recorded) {
+        if (recorded) {
+            if (logSize + COLOR_COUNT + 7 > log.length) log = Arrays.copyOf(log, Math.max(log.length * 2, logSize + COLOR_COUNT + 7));
+            log[logSize++] = parents[partition][zoneId];
+            log[logSize++] = sizes[partition][zoneId];
+            log[logSize++] = openConnections[partition][zoneId];
+            log[logSize++] = nextZones[partition][zoneId];
+            for (int c = 0; c < COLOR_COUNT; c++) log[logSize++] = areaOccupants[partition][zoneId * COLOR_COUNT + c];
+            log[logSize++] = partition;
+            log[logSize++] = zoneId;
+            log[logSize++] = OP_ZONE;
+        }
+        parents[partition][zoneId] = zoneId;
+        sizes[partition][zoneId] = 1;
+        nextZones[partition][zoneId] = zoneId;
+        openConnections[partition][zoneId] = INITIAL_OPEN_CONNECTIONS[partition][zoneId];
+        Arrays.fill(areaOccupants[partition], zoneId * COLOR_COUNT, (zoneId + 1) * COLOR_COUNT, 0);
+    }
+
+    /**
+     * Used to connect the areas of two facing sides, like {@link ZonePartitions.Builder#connectSides}
+     * @param s1 The side of the placed tile
+     * @param s2 The side of the neighbour facing it
+     */
+    private void connectSides(TileSide s1, TileSide s2) {
+        switch (s1) {
+            case TileSide.Forest(Zone.Forest f1) when s2 instanceof TileSide.Forest(Zone.Forest f2) ->
+                    union(FORESTS, f1.id(), f2.id());
+            case TileSide.Meadow(Zone.Meadow m1) when s2 instanceof TileSide.Meadow(Zone.Meadow m2) ->
+                    union(MEADOWS, m1.id(), m2.id());
+            case TileSide.River(Zone.Meadow m11, Zone.River r1, Zone.Meadow m12)
+                    when s2 instanceof TileSide.River(Zone.Meadow m21, Zone.River r2, Zone.Meadow m22) -> {
+                union(MEADOWS, m11.id(), m22.id());
+                union(RIVERS, r1.id(), r2.id());
+                union(MEADOWS, m12.id(), m21.id());
+                union(RIVER_SYSTEMS, r1.id(), r2.id());
+            }
+            default -> throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Used to find the root of the area containing the given zone in the given partition
+     * @param partition The partition
+     * @param zoneId The id of the zone
+     * @return The id of the root zone of the area
+     */
+    private int find(int partition, int zoneId) {
+        int[] partitionParents = parents[partition];
+        while (partitionParents[zoneId] != zoneId) zoneId = partitionParents[zoneId];
+        return zoneId;
+    }
+
+    /**
+     * Used to connect the areas containing the two given zones, each connection closing two open connections
+     * The smaller area is attached under the root of the larger one without path compression, so that the union
+     * can be undone by detaching it again
+     * @param partition The partition
+     * @param zoneId1 The id of the first zone
+     * @param zoneId2 The id of the second zone
+     */
+    private void union(int partition, int zoneId1, int zoneId2) {
+        int root = find(partition, zoneId1);
+        int child = find(partition, zoneId2);
+        int[] partitionOpenConnections = openConnections[partition];
+
+        if (root == child) {
+            record(OP_OPEN_CONNECTIONS, 3, partition, root, partitionOpenConnections[root]);
+            partitionOpenConnections[root] -= 2;
+            return;
+        }
+
+        if (sizes[partition][root] < sizes[partition][child]) {
+            int tmp = root;
+            root = child;
+            child = tmp;
+        }
+        record(OP_UNION, 3, partition, child, partitionOpenConnections[root]);
+        parents[partition][child] = root;
+        sizes[partition][root] += sizes[partition][child];
+        partitionOpenConnections[root] += partitionOpenConnections[child] - 2;
+        for (int c = 0; c < COLOR_COUNT; c++)
+            areaOccupants[partition][root * COLOR_COUNT + c] += areaOccupants[partition][child * COLOR_COUNT + c];
+        swapNextZones(partition, root, child);
+    }
+
+    /**
+     * Used to swap the next zones of two zones, which merges their circular lists if they are different,
+     * and splits them back if the lists were merged by the same swap
+     * @param partition The partition
+     * @param zoneId1 The id of the first zone
+     * @param zoneId2 The id of the second zone
+     */
+    private void swapNextZones(int partition, int zoneId1, int zoneId2) {
+        int[] next = nextZones[partition];
+        int tmp = next[zoneId1];
+        next[zoneId1] = next[zoneId2];
+        next[zoneId2] = tmp;
+    }
+
+    /**
+     * Used to check if the last placed tile can be occupied by the current player
+     * @return True if at least one occupant can be placed on the last placed tile
+     */
+    private boolean hasPotentialOccupant() {
+        if (Objects.isNull(placedTiles[lastSlot].placer())) return false;
+        for (int zoneId : TILE_ZONE_IDS[placedTiles[lastSlot].id()])
+            for (Occupant.Kind kind : OCCUPANT_KINDS)
+                if (canOccupy(zoneId, kind)) return true;
+        return false;
+    }
+
+    /**
+     * Used to check if the current player can place an occupant of the given kind in the given zone of the last
+     * placed tile, like {@link GameState#lastTilePotentialOccupants()}
+     * @param zoneId The id of the zone
+     * @param kind The kind of the occupant
+     * @return True if the occupant can be placed
+     */
+    private boolean canOccupy(int zoneId, Occupant.Kind kind) {
+        // Pawns can be placed on the side zones, huts on the lakes and the rivers without a lake
+        Zone zone = ZONES[zoneId];
+        boolean potential = kind == Occupant.Kind.PAWN
+                ? !(zone instanceof Zone.Lake)
+                : zone instanceof Zone.Lake || zone instanceof Zone.River river && !river.hasLake();
+        if (!potential || freeOccupantsCount(currentPlayer(), kind) == 0) return false;
+        return !isOccupied(partitionOf(zone, kind), find(partitionOf(zone, kind), zoneId));
+    }
+
+    /**
+     * Used to add the given occupant to its tile and to the area it occupies
+     * @param occupant The occupant
+     */
+    private void addOccupant(Occupant occupant) {
+        int slot = slotByTileId[Zone.tileId(occupant.zoneId())];
+        Preconditions.checkArgument(slot != NONE && occupantKinds[slot] == NONE);
+        PlayerColor placer = placedTiles[slot].placer();
+        int partition = partitionOf(ZONES[occupant.zoneId()], occupant.kind());
+
+        recordOccupant(slot);
+        setOccupant(slot, occupant.kind().ordinal(), occupant.zoneId());
+        addAreaOccupants(partition, find(partition, occupant.zoneId()), placer, 1);
+    }
+
+    /**
+     * Used to remove the given pawn from its tile and from the area it occupies
+     * @param occupant The pawn
+     */
+    private void removeOccupant(Occupant occupant) {
+        int slot = slotByTileId[Zone.tileId(occupant.zoneId())];
+        Preconditions.checkArgument(slot != NONE && occupantKinds[slot] == occupant.kind().ordinal()
+                && occupantZoneIds[slot] == occupant.zoneId());
+        PlayerColor placer = placedTiles[slot].placer();
+        int partition = partitionOf(ZONES[occupant.zoneId()], occupant.kind());
+
+        recordOccupant(slot);
+        setOccupant(slot, NONE, 0);
+        addAreaOccupants(partition, find(partition, occupant.zoneId()), placer, -1);
+    }
+
+    /**
+     * Used to record the occupant of the tile at the given slot before it is changed
+     * @param slot The slot
+     */
+    private void recordOccupant(int slot) {
+        record(OP_OCCUPANT, 3, slot, occupantKinds[slot], occupantZoneIds[slot]);
+    }
+
+    /**
+     * Used to set the occupant of the tile at the given slot, updating the number of occupants of its placer
+     * @param slot The slot
+     * @param kind The ordinal of the kind of the occupant, or NONE
+     * @param zoneId The id of the zone of the occupant
+     */
+    private void setOccupant(int slot, int kind, int zoneId) {
+        PlayerColor placer = placedTiles[slot].placer();
+        if (occupantKinds[slot] != NONE) {
+            occupantCounts[occupantCountIndex(placer, OCCUPANT_KINDS[occupantKinds[slot]])]--;
+            boardHash ^= Zobrist.occupantKey(OCCUPANT_KINDS[occupantKinds[slot]], occupantZoneIds[slot]);
+        }
+        if (kind != NONE) {
+            occupantCounts[occupantCountIndex(placer, OCCUPANT_KINDS[kind])]++;
+            boardHash ^= Zobrist.occupantKey(OCCUPANT_KINDS[kind], zoneId);
+        }
+        occupantKinds[slot] = kind;
+        occupantZoneIds[slot] = zoneId;
+    }
+
+    /**
+     * Used to change the number of occupants of the given player in the area of the given root
+     * @param partition The partition
+     * @param root The root of the area
+     * @param player The player
+     * @param delta The change of the number of occupants
+     */
+    private void addAreaOccupants(int partition, int root, PlayerColor player, int delta) {
+        int index = root * COLOR_COUNT + player.ordinal();
+        areaOccupants[partition][index] += delta;
+        record(OP_AREA_OCCUPANTS, 3, partition, index, delta);
+    }
+
+    /**
+     * Used to check if the area of the given root is occupied
+     * @param partition The partition
+     * @param root The root of the area
+     * @return True if the area has at least one occupant
+     */
+    private boolean isOccupied(int partition, int root) {
+        for (int c = 0; c < COLOR_COUNT; c++)
+            if (areaOccupants[partition][root * COLOR_COUNT + c] > 0) return true;
+        return false;
+    }
+
+    /**
+     * Used to give the given points to the majority occupants of the area of the given root, if it is occupied
+     * @param partition The partition
+     * @param root The root of the area
+     * @param areaPoints The points
+     */
+    private void scoreMajority(int partition, int root, int areaPoints) {
+        if (areaPoints <= 0) return;
+        int max = 0;
+        for (int c = 0; c < COLOR_COUNT; c++) max = Math.max(max, areaOccupants[partition][root * COLOR_COUNT + c]);
+        if (max == 0) return;
+        for (PlayerColor color : PlayerColor.ALL)
+            if (areaOccupants[partition][root * COLOR_COUNT + color.ordinal()] == max) addPoints(color, areaPoints);
+    }
+
+    /**
+     * Used to add points to the given player
+     * @param player The player
+     * @param delta The points to add
+     */
+    private void addPoints(PlayerColor player, int delta) {
+        if (delta == 0) return;
+        points[player.ordinal()] += delta;
+        record(OP_POINTS, 2, player.ordinal(), delta, 0);
+    }
+
+    /**
+     * Used to cancel the given animal
+     * @param animal The animal
+     */
+    private void cancel(Animal animal) {
+        if (cancelledAnimals[animal.id()]) return;
+        cancelledAnimals[animal.id()] = true;
+        boardHash ^= Zobrist.cancelledAnimalKey(animal.id());
+        record(OP_CANCEL, 1, animal.id(), 0, 0);
+    }
+
+    /**
+     * Used to count the lakes of the river system containing the given zone
+     * @param zoneId The id of the zone
+     * @return The number of lakes of the river system
+     */
+    private int lakeCount(int zoneId) {
+        int root = find(RIVER_SYSTEMS, zoneId);
+        int lakeCount = 0;
+        int zone = root;
+        do {
+            if (ZONES[zone] instanceof Zone.Lake) lakeCount++;
+            zone = nextZones[RIVER_SYSTEMS][zone];
+        } while (zone != root);
+        return lakeCount;
+    }
+
+    /**
+     * Used to check if the given zone of the meadow partition is on a tile adjacent to the given slot,
+     * or on the tile at the slot itself
+     * @param zoneId The id of the zone
+     * @param slot The slot
+     * @return True if the tile of the zone is at most one tile away from the slot in both directions
+     */
+    private boolean isAdjacent(int zoneId, int slot) {
+        int zoneSlot = slotByTileId[Zone.tileId(zoneId)];
+        return Math.abs(zoneSlot % tilesPerSide - slot % tilesPerSide) <= 1
+                && Math.abs(zoneSlot / tilesPerSide - slot / tilesPerSide) <= 1;
+    }
+
+    /**
+     * Used to score the hunting trap in the given zone of the last placed tile and to cancel the animals of the
+     * adjacent meadow, like {@link GameState#withPlacedTile(PlacedTile)}
+     * <p>
+     * As in GameState, the points count all the animals of the adjacent meadow but the deer eaten by the tigers
+     * @param zoneId The id of the zone with the hunting trap
+     */
+    private void scoreHuntingTrap(int zoneId) {
+        int root = find(MEADOWS, zoneId);
+        int[] counts = new int[Animal.Kind.values().length];
+        int deer = 0, tigers = 0;
+        int zone = root;
+        do {
+            if (isAdjacent(zone, lastSlot))
+                for (Animal animal : ((Zone.Meadow) ZONES[zone]).animals()) {
+                    counts[animal.kind().ordinal()]++;
+                    if (cancelledAnimals[animal.id()]) continue;
+                    if (animal.kind() == Animal.Kind.DEER) deer++;
+                    if (animal.kind() == Animal.Kind.TIGER) tigers++;
+                }
+            zone = nextZones[MEADOWS][zone];
+        } while (zone != root);
+
+        int eatenDeer = Math.min(deer, tigers);
+        addPoints(currentPlayer(), Points.forMeadow(counts[Animal.Kind.MAMMOTH.ordinal()],
+                counts[Animal.Kind.AUROCHS.ordinal()], counts[Animal.Kind.DEER.ordinal()] - eatenDeer));
+
+        // All the animals of the adjacent meadow are cancelled
+        do {
+            if (isAdjacent(zone, lastSlot))
+                for (Animal animal : ((Zone.Meadow) ZONES[zone]).animals()) cancel(animal);
+            zone = nextZones[MEADOWS][zone];
+        } while (zone != root);
+    }
+
+    /**
+     * Used to score the forests and rivers closed by the last placed tile, and to either give a second turn to
+     * the current player, draw the tile of the next player or tally the final scores, like GameState does
+     */
+    private void endTurn() {
+        PlacedTile lastTile = placedTiles[lastSlot];
+
+        // Find the distinct closed forests and rivers of the last placed tile
+        int[] closedForests = closedRoots(FORESTS, lastTile);
+        int[] closedRivers = closedRoots(RIVERS, lastTile);
+
+        int nextNormalIndex = normalIndex;
+        while (nextNormalIndex < normalTiles.length && !couldPlaceTile(normalTiles[nextNormalIndex])) nextNormalIndex++;
+        int nextMenhirIndex = menhirIndex;
+        while (nextMenhirIndex < menhirTiles.length && !couldPlaceTile(menhirTiles[nextMenhirIndex])) nextMenhirIndex++;
+
+        boolean closedMenhirForest = false;
+        for (int root : closedForests) {
+            nextMark();
+            int tileCount = 0, mushroomGroupCount = 0;
+            int zone = root;
+            do {
+                Zone.Forest forest = (Zone.Forest) ZONES[zone];
+                if (markTile(forest.tileId())) tileCount++;
+                if (forest.kind() == Zone.Forest.Kind.WITH_MUSHROOMS) mushroomGroupCount++;
+                if (forest.kind() == Zone.Forest.Kind.WITH_MENHIR) closedMenhirForest = true;
+                zone = nextZones[FORESTS][zone];
+            } while (zone != root);
+            if (isOccupied(FORESTS, root))
+                scoreMajority(FORESTS, root, Points.forClosedForest(tileCount, mushroomGroupCount));
+        }
+        for (int root : closedRivers) {
+            nextMark();
+            int tileCount = 0, fishCount = 0;
+            int zone = root;
+            do {
+                Zone.River river = (Zone.River) ZONES[zone];
+                if (markTile(river.tileId())) tileCount++;
+                fishCount += river.fishCount();
+                if (river.hasLake() && markZone(river.lake().id())) fishCount += river.lake().fishCount();
+                zone = nextZones[RIVERS][zone];
+            } while (zone != root);
+            if (isOccupied(RIVERS, root)) scoreMajority(RIVERS, root, Points.forClosedRiver(tileCount, fishCount));
+        }
+
+        // Take back the gatherers and fishers of the closed forests and rivers
+        for (int root : closedForests) clearPawns(FORESTS, root);
+        for (int root : closedRivers) clearPawns(RIVERS, root);
+
+        if (lastTile.kind() == Tile.Kind.NORMAL && nextMenhirIndex < menhirTiles.length && closedMenhirForest) {
+            menhirIndex = nextMenhirIndex;
+            tileToPlace = menhirTiles[menhirIndex++];
+            nextAction = GameState.Action.PLACE_TILE;
+        } else if (nextNormalIndex == normalTiles.length) {
+            normalIndex = nextNormalIndex;
+            tallyFinalScores();
+            tileToPlace = null;
+            nextAction = GameState.Action.END_GAME;
+        } else {
+            normalIndex = nextNormalIndex;
+            tileToPlace = normalTiles[normalIndex++];
+            currentPlayerIndex = (currentPlayerIndex + 1) % players.length;
+            nextAction = GameState.Action.PLACE_TILE;
+        }
+    }
+
+    /**
+     * Used to find the distinct closed areas of the given partition containing a zone of the given tile
+     * @param partition The partition, forests or rivers
+     * @param placedTile The placed tile
+     * @return The roots of the closed areas
+     */
+    private int[] closedRoots(int partition, PlacedTile placedTile) {
+        int[] roots = new int[LOCAL_ID_COUNT];
+        int count = 0;
+        for (int zoneId : TILE_ZONE_IDS[placedTile.id()]) {
+            if (partitionOf(ZONES[zoneId]) != partition) continue;
+            int root = find(partition, zoneId);
+            if (openConnections[partition][root] != 0) continue;
+            boolean known = false;
+            for (int i = 0; i < count; i++) known |= roots[i] == root;
+            if (!known) roots[count++] = root;
+        }
+        return Arrays.copyOf(roots, count);
+    }
+
+    /**
+     * Used to take back the pawns occupying the area of the given root
+     * @param partition The partition
+     * @param root The root of the area
+     */
+    private void clearPawns(int partition, int root) {
+        if (!isOccupied(partition, root)) return;
+        int zone = root;
+        do {
+            int slot = slotByTileId[Zone.tileId(zone)];
+            if (occupantKinds[slot] == Occupant.Kind.PAWN.ordinal() && occupantZoneIds[slot] == zone) {
+                recordOccupant(slot);
+                setOccupant(slot, NONE, 0);
+            }
+            zone = nextZones[partition][zone];
+        } while (zone != root);
+        for (PlayerColor color : PlayerColor.ALL) {
+            int count = areaOccupants[partition][root * COLOR_COUNT + color.ordinal()];
+            if (count != 0) addAreaOccupants(partition, root, color, -count);
+        }
+    }
+
+    /**
+     * Used to tally the final scores of the meadows and the river systems, like GameState does
+     * <p>
+     * The deer eaten by the tigers only matter through their number, except for the pit trap, whose adjacent
+     * meadow keeps as many deer as possible, so the animals cancelled by the final scoring are not recorded
+     */
+    private void tallyFinalScores() {
+        nextMark();
+        for (int slot = 0; slot < placedTiles.length; slot++) {
+            if (Objects.isNull(placedTiles[slot])) continue;
+            for (int zoneId : TILE_ZONE_IDS[placedTiles[slot].id()]) {
+                if (ZONES[zoneId] instanceof Zone.Meadow) {
+                    int root = find(MEADOWS, zoneId);
+                    if (markZone(root)) scoreMeadow(root);
+                }
+            }
+        }
+        nextMark();
+        for (int slot = 0; slot < placedTiles.length; slot++) {
+            if (Objects.isNull(placedTiles[slot])) continue;
+            for (int zoneId : TILE_ZONE_IDS[placedTiles[slot].id()]) {
+                if (ZONES[zoneId] instanceof Zone.Water) {
+                    int root = find(RIVER_SYSTEMS, zoneId);
+                    if (markZone(root)) scoreRiverSystem(root);
+                }
+            }
+        }
+    }
+
+    /**
+     * Used to score the meadow of the given root at the end of the game, and its pit trap if it has one
+     * <p>
+     * As in GameState, the points of the meadow count all its animals but the deer eaten by the tigers, even the
+     * animals cancelled before, while only the animals that are not cancelled are counted for the pit trap
+     * @param root The root of the meadow
+     */
+    private void scoreMeadow(int root) {
+        int[] counts = new int[Animal.Kind.values().length];
+        int deer = 0, tigers = 0;
+        boolean hasWildFire = false;
+        int pitTrapZone = NONE;
+        int zone = root;
+        do {
+            Zone.Meadow meadow = (Zone.Meadow) ZONES[zone];
+            if (meadow.specialPower() == Zone.SpecialPower.WILD_FIRE) hasWildFire = true;
+            if (meadow.specialPower() == Zone.SpecialPower.PIT_TRAP) pitTrapZone = zone;
+            for (Animal animal : meadow.animals()) {
+                counts[animal.kind().ordinal()]++;
+                if (cancelledAnimals[animal.id()]) continue;
+                if (animal.kind() == Animal.Kind.DEER) deer++;
+                if (animal.kind() == Animal.Kind.TIGER) tigers++;
+            }
+            zone = nextZones[MEADOWS][zone];
+        } while (zone != root);
+
+        int eatenDeer = hasWildFire ? 0 : Math.min(deer, tigers);
+        if (isOccupied(MEADOWS, root))
+            scoreMajority(MEADOWS, root, Points.forMeadow(counts[Animal.Kind.MAMMOTH.ordinal()],
+                    counts[Animal.Kind.AUROCHS.ordinal()], counts[Animal.Kind.DEER.ordinal()] - eatenDeer));
+        if (pitTrapZone == NONE || !isOccupied(MEADOWS, root)) return;
+
+        // Count the animals of the meadow adjacent to the pit trap, the eaten deer being the farthest ones
+        int pitTrapSlot = slotByTileId[Zone.tileId(pitTrapZone)];
+        int[] adjacentCounts = new int[Animal.Kind.values().length];
+        do {
+            if (isAdjacent(zone, pitTrapSlot))
+                for (Animal animal : ((Zone.Meadow) ZONES[zone]).animals())
+                    if (!cancelledAnimals[animal.id()]) adjacentCounts[animal.kind().ordinal()]++;
+            zone = nextZones[MEADOWS][zone];
+        } while (zone != root);
+
+        int adjacentDeer = adjacentCounts[Animal.Kind.DEER.ordinal()];
+        if (eatenDeer > 0) adjacentDeer = deer >= tigers ? Math.min(adjacentDeer, deer - tigers) : 0;
+        scoreMajority(MEADOWS, root, Points.forMeadow(adjacentCounts[Animal.Kind.MAMMOTH.ordinal()],
+                adjacentCounts[Animal.Kind.AUROCHS.ordinal()], adjacentDeer));
+    }
+
+    /**
+     * Used to score the river system of the given root at the end of the game, and its raft if it has one
+     * @param root The root of the river system
+     */
+    private void scoreRiverSystem(int root) {
+        if (!isOccupied(RIVER_SYSTEMS, root)) return;
+        int fishCount = 0, lakeCount = 0;
+        boolean hasRaft = false;
+        int zone = root;
+        do {
+            Zone.Water water = (Zone.Water) ZONES[zone];
+            fishCount += water.fishCount();
+            if (water instanceof Zone.Lake lake) {
+                lakeCount++;
+                hasRaft |= lake.specialPower() == Zone.SpecialPower.RAFT;
+            }
+            zone = nextZones[RIVER_SYSTEMS][zone];
+        } while (zone != root);
+
+        if (hasRaft) scoreMajority(RIVER_SYSTEMS, root, Points.forRaft(lakeCount));
+        scoreMajority(RIVER_SYSTEMS, root, Points.forRiverSystem(fishCount));
+    }
+
+    /**
+     * Used to get the value of the area of the given root for its majority occupants, as estimated by
+     * {@link PositionEvaluator}
+     * @param partition The partition of the area
+     * @param root The root of the area
+     * @param tilesLeft The number of normal tiles left
+     * @return The expected value of the area
+     */
+    private double expectedAreaValue(int partition, int root, int tilesLeft) {
+        nextMark();
+        int tileCount = 0, mushroomGroupCount = 0, fishCount = 0, lakeCount = 0;
+        boolean hasRaft = false;
+        int[] animalCounts = new int[Animal.Kind.values().length];
+        int zone = root;
+        do {
+            if (markTile(Zone.tileId(zone))) tileCount++;
+            switch (ZONES[zone]) {
+                case Zone.Forest forest -> {
+                    if (forest.kind() == Zone.Forest.Kind.WITH_MUSHROOMS) mushroomGroupCount++;
+                }
+                case Zone.Meadow meadow -> {
+                    for (Animal animal : meadow.animals())
+                        if (!cancelledAnimals[animal.id()]) animalCounts[animal.kind().ordinal()]++;
+                }
+                case Zone.River river -> {
+                    fishCount += river.fishCount();
+                    if (partition == RIVERS && river.hasLake() && markZone(river.lake().id()))
+                        fishCount += river.lake().fishCount();
+                }
+                case Zone.Lake lake -> {
+                    fishCount += lake.fishCount();
+                    lakeCount++;
+                    hasRaft |= lake.specialPower() == Zone.SpecialPower.RAFT;
+                }
+            }
+            zone = nextZones[partition][zone];
+        } while (zone != root);
+
+        int open = openConnections[partition][root];
+        return switch (partition) {
+            case FORESTS -> open == 0 ? 0
+                    : PositionEvaluator.openForestValue(tileCount, mushroomGroupCount, open, tilesLeft);
+            case RIVERS -> open == 0 ? 0 : PositionEvaluator.openRiverValue(tileCount, fishCount, open, tilesLeft);
+            case MEADOWS -> PositionEvaluator.meadowValue(animalCounts[Animal.Kind.MAMMOTH.ordinal()],
+                    animalCounts[Animal.Kind.AUROCHS.ordinal()], animalCounts[Animal.Kind.DEER.ordinal()],
+                    animalCounts[Animal.Kind.TIGER.ordinal()]);
+            default -> PositionEvaluator.riverSystemValue(fishCount, lakeCount, hasRaft);
+        };
+    }
+
+    /**
+     * Used to add the given value to the scores of the majority occupants of the area of the given root
+     * @param scores The scores of the players, indexed by color ordinal
+     * @param partition The partition of the area
+     * @param root The root of the area, which must be occupied
+     * @param value The value of the area
+     */
+    private void addToMajority(double[] scores, int partition, int root, double value) {
+        if (value <= 0) return;
+        int max = 0;
+        for (int c = 0; c < COLOR_COUNT; c++) max = Math.max(max, areaOccupants[partition][root * COLOR_COUNT + c]);
+        for (int c = 0; c < COLOR_COUNT; c++)
+            if (areaOccupants[partition][root * COLOR_COUNT + c] == max) scores[c] += value;
+    }
+
+    /** Used to start a new count of distinct tiles or zones */
+    private void nextMark() {
+        mark++;
+    }
+
+    /**
+     * Used to mark the given tile for the current count
+     * @param tileId The id of the tile
+     * @return True if the tile was not yet marked
+     */
+    private boolean markTile(int tileId) {
+        if (tileMarks[tileId] == mark) return false;
+        tileMarks[tileId] = mark;
+        return true;
+    }
+
+    /**
+     * Used to mark the given zone for the current count
+     * @param zoneId The id of the zone
+     * @return True if the zone was not yet marked
+     */
+    private boolean markZone(int zoneId) {
+        if (zoneMarks[zoneId] == mark) return false;
+        zoneMarks[zoneId] = mark;
+        return true;
+    }
+
+    /**
+     * Used to check if the given placed tile can be added to the board
+     * @param placedTile The placed tile
+     * @return True if its position is in the fringe and its sides match the ones of its neighbours
+     */
+    private boolean canAddTile(PlacedTile placedTile) {
+        Pos pos = placedTile.pos();
+        if (Math.abs(pos.x()) > reach || Math.abs(pos.y()) > reach) return false;
+        int slot = slotOf(pos);
+        return fringeIndex[slot] != NONE && fitsNeighbours(placedTile.sideKinds(), neighbourSideKinds(slot));
+    }
+
+    /**
+     * Used to check if the given tile can be placed somewhere on the board with an eventual rotation
+     * @param tile The tile
+     * @return True if the tile can be placed on the board
+     */
+    private boolean couldPlaceTile(Tile tile) {
+        int[] sideKinds = sideKindsOf(tile);
+        for (int i = 0; i < fringeSize; i++) {
+            int neighbourSideKinds = neighbourSideKinds(fringe[i]);
+            for (int sideKind : sideKinds)
+                if (fitsNeighbours(sideKind, neighbourSideKinds)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Used to get the packed encodings of the kinds of the sides of the given tile for each rotation
+     * @param tile The tile
+     * @return The packed encodings of the kinds of the sides of the tile, indexed by rotation ordinal
+     */
+    private static int[] sideKindsOf(Tile tile) {
+        int[] sideKinds = new int[Rotation.COUNT];
+        for (Rotation r : Rotation.ALL) sideKinds[r.ordinal()] = tile.sideKinds(r);
+        return sideKinds;
+    }
+
+    /**
+     * Used to get the packed encoding of the kinds of the sides of the neighbours facing the given slot,
+     * in the same format as {@link Tile#sideKinds(Rotation)}
+     * @param slot The slot
+     * @return The packed encoding of the kinds of the sides of the neighbours facing the slot
+     */
+    private int neighbourSideKinds(int slot) {
+        int neighbourSideKinds = 0;
+        for (int d = 0; d < Direction.COUNT; d++) {
+            int neighbour = neighbourSlot(slot, d);
+            if (neighbour == NONE || Objects.isNull(placedTiles[neighbour])) continue;
+            int opposite = (d + Direction.COUNT / 2) % Direction.COUNT;
+            int kind = sideKindsBySlot[neighbour] >>> Tile.SIDE_KIND_BITS * opposite & Tile.SIDE_KIND_MASK;
+            neighbourSideKinds |= kind << Tile.SIDE_KIND_BITS * d;
+        }
+        return neighbourSideKinds;
+    }
+
+    /**
+     * Used to check if a tile with the given side kinds matches the sides of its neighbours
+     * @param sideKinds The packed encoding of the kinds of the sides of the tile
+     * @param neighbourSideKinds The packed encoding of the kinds of the sides of the neighbours facing the tile
+     * @return True if every side of the tile is of the same kind as the side of the neighbour it faces
+     */
+    private static boolean fitsNeighbours(int sideKinds, int neighbourSideKinds) {
+        int neighbours = (neighbourSideKinds | neighbourSideKinds >>> 1) & 0b01010101;
+        neighbours |= neighbours << 1;
+        return (sideKinds & neighbours) == neighbourSideKinds;
+    }
+
+    /**
+     * Used to get the placed tile at the given slot with its occupant
+     * @param slot The slot
+     * @return The placed tile at the slot with its occupant, or null if there is none
+     */
+    private PlacedTile placedTileAt(int slot) {
+        PlacedTile placedTile = placedTiles[slot];
+        if (Objects.isNull(placedTile) || occupantKinds[slot] == NONE) return placedTile;
+        return placedTile.withOccupant(new Occupant(OCCUPANT_KINDS[occupantKinds[slot]], occupantZoneIds[slot]));
+    }
+
+    /**
+     * Used to get the slot of the neighbour of the given slot in the given direction
+     * @param slot The slot
+     * @param direction The ordinal of the direction
+     * @return The slot of the neighbour, or NONE if it is out of the board
+     */
+    private int neighbourSlot(int slot, int direction) {
+        int x = slot % tilesPerSide + NEIGHBOUR_DX[direction];
+        int y = slot / tilesPerSide + NEIGHBOUR_DY[direction];
+        if (x < 0 || y < 0 || x >= tilesPerSide || y >= tilesPerSide) return NONE;
+        return y * tilesPerSide + x;
+    }
+
+    /**
+     * Used to get the slot of the given position
+     * @param pos The position
+     * @return The slot of the position
+     */
+    private int slotOf(Pos pos) {
+        return tilesPerSide * (reach + pos.y()) + reach + pos.x();
+    }
+
+    /**
+     * Used to get the position of the given slot
+     * @param slot The slot
+     * @return The position of the slot
+     */
+    private Pos posOf(int slot) {
+        return new Pos(slot % tilesPerSide - reach, slot / tilesPerSide - reach);
+    }
+
+    /**
+     * Used to get the index of the number of occupants of the given player and kind in occupantCounts
+     * @param player The player
+     * @param kind The kind of the occupants
+     * @return The index in occupantCounts
+     */
+    private static int occupantCountIndex(PlayerColor player, Occupant.Kind kind) {
+        return player.ordinal() * OCCUPANT_KIND_COUNT + kind.ordinal();
+    }
+}
@@ -0,0 +1,74 @@
+package ch.epfl.chacun.extensions.bot;
+
+import ch.epfl.chacun.Preconditions;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Represents a bounded transposition table mapping the Zobrist hashes of the states of the game to values,
+ * each slot holding at most one entry which is replaced by any newer entry hashed to the same slot
+ * <p>
+ * The entries are immutable and stored in an atomic array, so the table can be shared by several threads
+ * without locking, a lookup seeing either a whole entry or none
+ * @param <V> The type of the values
+ * @author Adam Bekkar (379476)
+ */
+final class TranspositionTable<V> {
+    /** The entries of the table, indexed by the low bits of the hashes */
+    private final AtomicReferenceArray<Entry<V>> entries;
+    /** The mask of the bits of a hash used as index */
+    private final int mask;
+
+    /**
+     * Represents an entry of the table
+     * @param hash The full hash of the state
+     * @param value The value associated to the state
+     * @param <V> The type of the value
+     */
+    private record Entry<V>(long hash, V value) {}
+
+    /**
+     * Used to create an empty transposition table
+     * @param capacity The number of entries of the table, which must be a positive power of two
+     * @throws IllegalArgumentException If the capacity is not a positive power of two
+     */
+    TranspositionTable(int capacity) {
+        Preconditions.checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1);
+        entries = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Used to get the value associated to the state with the given hash
+     * @param hash The Zobrist hash of the state
+     * @return The value associated to the state, or null if there is none
+     */
+    V get(long hash) {
+        Entry<V> entry = entries.get(indexOf(hash));
+        return Objects.nonNull(entry) && entry.hash() == hash ? entry.value() : null;
+    }
+
+    /**
+     * Used to associate the given value to the state with the given hash, replacing the entry of its slot
+     * @param hash The Zobrist hash of the state
+     * @param value The value
+     */
+    void put(long hash, V value) {
+        entries.set(indexOf(hash), new Entry<>(hash, value));
+    }
+
+    /** Used to remove all the entries of the table */
+    void clear() {
+        for (int i = 0; i < entries.length(); i++) entries.set(i, null);
+    }
+
+    /**
+     * Used to get the index of the slot of the given hash, mixing the high bits into the low ones
+     * @param hash The hash
+     * @return The index of the slot
+     */
+    private int indexOf(long hash) {
+        return (int) (hash ^ hash >>> 32) & mask;
+    }
+}
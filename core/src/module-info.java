@@ -0,0 +1,4 @@
+module ChaCuN.core {
+    exports ch.epfl.chacun;
+    exports ch.epfl.chacun.extensions.bot;
+}
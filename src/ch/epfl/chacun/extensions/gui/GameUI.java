@@ -22,6 +22,9 @@ import javafx.scene.layout.VBox;
 import javafx.util.Duration;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -43,8 +46,12 @@ public class GameUI {
 
     /** The scheduler to get the last action from the database */
     public static ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-    /** The last occupant */
-    public static ObjectProperty<Occupant> lastOccupant = new SimpleObjectProperty<>(null);
+    /** The executor computing the actions of the bots off the JavaFX application thread, one at a time */
+    public static ExecutorService botExecutor = newBotExecutor();
+    /** The action of a bot being computed, or null if there is none */
+    private static CompletableFuture<ActionEncoder.StateAction> pendingBotAction;
+    /** The pondering of a bot in progress, or null if there is none */
+    private static CompletableFuture<Void> pendingPondering;
 
     /** The list of bots */
     private final List<Bot> bots = new LinkedList<>();
@@ -57,6 +64,7 @@ public class GameUI {
      */
     public Scene showGameScreen() {
         scheduler = Executors.newSingleThreadScheduledExecutor();
+        botExecutor = newBotExecutor();
 
         // Configure the game and the bots depending on if the game requires a server
         if (!GAME_DATA.get().requiresServer()) {
@@ -200,11 +208,25 @@ public class GameUI {
         });
 
         gameStateP.addListener((_, _, n) -> {
-            // Allow the bot to play
-            if (!GAME_DATA.get().requiresServer() && n.nextAction() != GameState.Action.END_GAME &&
-                    n.currentPlayer() == reversePlayerDatas.get(botData.getFirst().uuid())) {
-                ActionEncoder.StateAction botStateAction = bots.getFirst().play(n);
-                actionHandler.accept(botStateAction.action());
+            if (n.nextAction() == GameState.Action.END_GAME) {
+                stopPondering();
+                return;
+            }
+            if (!GAME_DATA.get().requiresServer()) {
+                // Allow the bot to play, or let it ponder while the player chooses their action
+                if (n.currentPlayer() == reversePlayerDatas.get(botData.getFirst().uuid()))
+                    playBot(bots.getFirst(), gameStateP, actionHandler);
+                else ponderBot(bots.getFirst(), n);
+            } else if (isHost()) {
+                // Let the bot of the first player not in the game, from the current one, ponder
+                for (int i = 0; i < n.players().size(); i++) {
+                    PlayerColor color = n.players().get((n.players().indexOf(n.currentPlayer()) + i)
+                            % n.players().size());
+                    PlayerData player = GAME_DATA.get().getPlayer(playerDatas.get(color));
+                    if (Objects.isNull(player) || player.inGame()) continue;
+                    ponderBot(bots.get(GAME_DATA.get().players().indexOf(player)), n);
+                    break;
+                }
             }
         });
 
@@ -259,11 +281,9 @@ public class GameUI {
                             PlayerData currentPlayer =
                                     GAME_DATA.get().getPlayer(playerDatas.get(gameStateP.getValue().currentPlayer()));
                             // Check if the player is not in the game
-                            if (Objects.nonNull(currentPlayer) && !currentPlayer.inGame()) {
-                                ActionEncoder.StateAction botStateAction = bots.get(GAME_DATA.get().players()
-                                        .indexOf(currentPlayer)).play(gameStateP.getValue());
-                                actionHandler.accept(botStateAction.action());
-                            }
+                            if (Objects.nonNull(currentPlayer) && !currentPlayer.inGame())
+                                playBot(bots.get(GAME_DATA.get().players().indexOf(currentPlayer)), gameStateP,
+                                        actionHandler);
                         });
                     } catch (Exception e) {
                         throw new RuntimeException(e);
@@ -277,6 +297,84 @@ public class GameUI {
         return new Scene(container, Main.WINDOW_WIDTH, Main.WINDOW_HEIGHT);
     }
 
+    /**
+     * Used to let a bot choose its action on the bot executor and apply it on the JavaFX application thread,
+     * unless the game state has changed in the meantime or a bot action is already being computed
+     * @param bot The bot to play
+     * @param gameStateP The game state property
+     * @param actionHandler The handler applying the encoded actions
+     */
+    private static void playBot(Bot bot, ObjectProperty<GameState> gameStateP, Consumer<String> actionHandler) {
+        playBot(bot, gameStateP, actionHandler, true);
+    }
+
+    /**
+     * Used to let a bot choose its action on the bot executor and apply it on the JavaFX application thread
+     * <p>
+     * A failure of the bot is reported to the uncaught exception handler of the JavaFX application thread, then
+     * the turn is played again once, and the game is left for the main menu if the bot fails again
+     * @param bot The bot to play
+     * @param gameStateP The game state property
+     * @param actionHandler The handler applying the encoded actions
+     * @param retry Whether the turn is played again if the bot fails
+     */
+    private static void playBot(Bot bot, ObjectProperty<GameState> gameStateP, Consumer<String> actionHandler,
+                                boolean retry) {
+        if (Objects.nonNull(pendingBotAction) && !pendingBotAction.isDone()) return;
+        // The bot executor runs one task at a time, so the pondering must stop for the bot to play
+        stopPondering();
+        GameState gameState = gameStateP.getValue();
+        pendingBotAction = bot.playAsync(gameState, botExecutor);
+        pendingBotAction.whenCompleteAsync((stateAction, e) -> {
+            if (e instanceof CancellationException) return;
+            if (Objects.nonNull(e)) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+            // The game may have moved on or ended while the bot was thinking
+            if (gameStateP.getValue() != gameState) return;
+
+            if (Objects.isNull(e)) actionHandler.accept(stateAction.action());
+            else if (retry) playBot(bot, gameStateP, actionHandler, false);
+            else Main.updateScene(Main.SceneType.MAIN);
+        }, Platform::runLater);
+    }
+
+    /**
+     * Used to let a bot ponder on the bot executor while the other players choose their actions, stopping the
+     * pondering in progress, if any
+     * @param bot The bot to ponder
+     * @param gameState The game state reached by the last action played
+     */
+    private static void ponderBot(Bot bot, GameState gameState) {
+        stopPondering();
+        if (Objects.nonNull(pendingBotAction) && !pendingBotAction.isDone()) return;
+        pendingPondering = bot.ponderAsync(gameState, botExecutor);
+    }
+
+    /** Used to stop the pondering of a bot in progress, if any */
+    private static void stopPondering() {
+        if (Objects.nonNull(pendingPondering)) pendingPondering.cancel(false);
+        pendingPondering = null;
+    }
+
+    /**
+     * Used to create the executor of the bots, whose daemon thread does not keep the application alive
+     * @return A new single thread executor for the bots
+     */
+    private static ExecutorService newBotExecutor() {
+        return Executors.newSingleThreadExecutor(Thread.ofPlatform().name("bot").daemon().factory());
+    }
+
+    /** Used to cancel the action of the bot being computed, if any, and to stop the bot executor */
+    public static void stopBots() {
+        if (Objects.nonNull(pendingBotAction)) pendingBotAction.cancel(false);
+        pendingBotAction = null;
+        stopPondering();
+        if (botExecutor != null && !(botExecutor.isShutdown() || botExecutor.isTerminated()))
+            botExecutor.shutdownNow();
+    }
+
     /**
      * Used to add an action to the game state
      * @param gameStateP The game state property
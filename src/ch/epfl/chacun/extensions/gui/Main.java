@@ -152,6 +152,8 @@ public class Main extends Application {
             GamePlayUI.scheduler.shutdown();
         if (GameUI.scheduler != null && !(GameUI.scheduler.isShutdown() || GameUI.scheduler.isTerminated()))
             GameUI.scheduler.shutdown();
+        // Stop the bots, which may still be thinking
+        GameUI.stopBots();
     }
 
     @Override
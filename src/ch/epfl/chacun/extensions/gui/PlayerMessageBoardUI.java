@@ -51,8 +51,8 @@ public class PlayerMessageBoardUI {
             String lastPlayer = playerNames.get(gameState.players().getLast());
             return switch (action) {
                 case PLACE_TILE -> textMaker.withPlacedTile(currentPlayer, gameState.board().lastPlacedTile());
-                case OCCUPY_TILE -> textMaker.withOccupant(lastPlayer, GameUI.lastOccupant.get());
-                case RETAKE_PAWN -> textMaker.withRetakePawn(currentPlayer, GameUI.lastOccupant.get());
+                case OCCUPY_TILE -> textMaker.withOccupant(lastPlayer, gameState.lastOccupant());
+                case RETAKE_PAWN -> textMaker.withRetakePawn(currentPlayer, gameState.lastOccupant());
                 default -> "";
             };
         }).addListener((_, _, newValue) -> text.set(newValue));
@@ -112,6 +112,10 @@ public class BoardUI {
         scrollPane.setId("board-scroll-pane");
         grid.setId("board-grid");
 
+        // Compute the legal placements of the tile to place once per game state for all the cells
+        ObservableValue<Board.LegalPlacements> legalPlacements = gameState.map(s ->
+                Objects.isNull(s.tileToPlace()) ? null : s.board().legalPlacements(s.tileToPlace()));
+
         // Create the groups for the tiles and occupants
         for (int i = -reach; i <= reach; i++) {
             for (int j = -reach; j <= reach; j++) {
@@ -126,7 +130,7 @@ public class BoardUI {
                 ObservableValue<PlacedTile> placedTile = gameState.map(s -> s.board().tileAt(pos));
                 ObservableValue<Tile> tile = gameState.map(GameState::tileToPlace);
                 ObservableValue<Boolean> isInsertionPosition = gameState.map(s ->
-                        s.board().insertionPositions()).map(p -> p.contains(pos));
+                        s.board().isInsertionPosition(pos));
                 ObservableValue<Boolean> hoverProperty = tileGroup.hoverProperty();
 
                 ObjectBinding<CellData> cellData = Bindings.createObjectBinding(() -> {
@@ -143,10 +147,10 @@ public class BoardUI {
                     PlayerColor currentPlayer = gameStateV.currentPlayer();
                     boolean nextActionIsCorrect = gameStateV.nextAction() == GameState.Action.PLACE_TILE;
                     boolean groupHasTile = Objects.nonNull(placedTile.getValue());
-                    boolean nullTile = tileV == null;
-                    PlacedTile pt = nullTile ? null : new PlacedTile(tileV, currentPlayer, tileRotation.getValue(), pos);
-                    boolean canAddTile = !nullTile && gameStateV.board().canAddTile(pt);
-                    boolean couldPlaceTile = !nullTile && gameStateV.board().couldPlaceTile(tileV, pos);
+                    Board.LegalPlacements legalPlacementsV = legalPlacements.getValue();
+                    boolean nullTile = tileV == null || legalPlacementsV == null;
+                    boolean canAddTile = !nullTile && legalPlacementsV.isLegal(pos, tileRotation.getValue());
+                    boolean couldPlaceTile = !nullTile && legalPlacementsV.isLegal(pos);
 
                     // Get the color of the cell
                     Color color = Color.TRANSPARENT;
@@ -177,7 +181,8 @@ public class BoardUI {
                     else image = cachedImages.get(-1);
 
                     return new CellData(image, tileRotation.getValue(), color);
-                }, placedTile, tilesInEvidence, tileRotation, hoverProperty, isInsertionPosition, tile, correctPlayer);
+                }, placedTile, tilesInEvidence, tileRotation, hoverProperty, isInsertionPosition, tile, correctPlayer,
+                        legalPlacements);
 
                 tileGroup.effectProperty().bind(cellData.map(_ ->
                     cachedVeils.computeIfAbsent(tileGroup, _ -> {
@@ -254,7 +259,7 @@ public class BoardUI {
                 tileGroup.setOnMouseClicked(e -> {
                     // Check if we are in the right state to place the tile and if the position is valid
                     if (gameState.getValue().nextAction() != GameState.Action.PLACE_TILE ||
-                            !gameState.getValue().board().insertionPositions().contains(pos) ||
+                            !gameState.getValue().board().isInsertionPosition(pos) ||
                             !e.isStillSincePress())
                         return;
 
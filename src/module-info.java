@@ -1,13 +1,12 @@
 module ChaCuN {
+    requires transitive ChaCuN.core;
     requires javafx.controls;
     requires java.net.http;
     requires java.xml;
 
-    exports ch.epfl.chacun;
     exports ch.epfl.chacun.gui;
     exports ch.epfl.chacun.extensions.json;
     exports ch.epfl.chacun.extensions.gui;
     exports ch.epfl.chacun.extensions.backend;
     exports ch.epfl.chacun.extensions.data;
-    exports ch.epfl.chacun.extensions.bot;
-}
\ No newline at end of file
+}